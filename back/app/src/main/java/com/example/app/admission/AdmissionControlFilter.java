@@ -0,0 +1,278 @@
+package com.example.app.admission;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Control de admisión para los endpoints de /firebase: protege la cuota de Firestore
+ * de un cliente que envía demasiadas solicitudes.
+ *
+ * Cada endpoint (el primer segmento después de /firebase/) tiene dos límites:
+ *   - una cubeta de fichas por cliente: si se agota, 429 con Retry-After
+ *   - un máximo de solicitudes en curso entre todos los clientes: si se llena, 503 con Retry-After
+ * Las solicitudes rechazadas se responden de inmediato, sin llegar al controlador.
+ *
+ * Los límites se configuran como "endpoint:porSegundo/ráfaga/enCurso" separados por comas;
+ * "*" es el valor para los endpoints no listados (comparten una cubeta por cliente) y 0 desactiva
+ * ese límite.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "/firebase/";
+    private static final String POR_OMISION = "*";
+
+    private final boolean habilitado;
+    private final String headerCliente;
+    private final Map<String, Limite> limites;
+    private final Limite limitePorOmision;
+
+    // Cubetas por endpoint y cliente; las de clientes inactivos se descartan solas
+    private final Cache<String, TokenBucket> cubetas;
+
+    public AdmissionControlFilter(@Value("${firebase.admission.enabled:true}") boolean habilitado,
+                                  @Value("${firebase.admission.limits:*:50/100/256}") String configuracion,
+                                  @Value("${firebase.admission.client-header:}") String headerCliente,
+                                  @Value("${firebase.admission.max-clients:100000}") long maxClientes,
+                                  @Value("${firebase.admission.idle-seconds:300}") long segundosInactivo,
+                                  MetricsRegistry metrics) {
+        this.habilitado = habilitado;
+        this.headerCliente = headerCliente.isBlank() ? null : headerCliente;
+        this.cubetas = Caffeine.newBuilder()
+            .maximumSize(maxClientes)
+            .expireAfterAccess(Duration.ofSeconds(segundosInactivo))
+            .build();
+
+        Map<String, Limite> leidos = leer(configuracion, metrics);
+        this.limitePorOmision = leidos.containsKey(POR_OMISION)
+            ? leidos.remove(POR_OMISION)
+            : new Limite(POR_OMISION, 0, 0, 0, metrics);
+        this.limites = Map.copyOf(leidos);
+
+        metrics.gauge("admission_clients", "Clientes con una cubeta de fichas activa", () -> cubetas.estimatedSize());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !habilitado
+            || HttpMethod.OPTIONS.matches(request.getMethod())
+            || !ruta(request).startsWith(PREFIJO);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String endpoint = endpoint(ruta(request));
+        Limite limite = limites.getOrDefault(endpoint, limitePorOmision);
+
+        if (limite.porSegundo > 0) {
+            long ahora = System.nanoTime();
+            TokenBucket cubeta = cubetas.get(limite.nombre + "|" + cliente(request),
+                k -> new TokenBucket(limite.porSegundo, limite.rafaga, ahora));
+            long espera = cubeta.intentar(ahora);
+            if (espera > 0) {
+                limite.porTasa.increment();
+                rechazar(response, HttpStatus.TOO_MANY_REQUESTS.value(), segundos(espera),
+                    "Demasiadas solicitudes, intente más tarde");
+                return;
+            }
+        }
+
+        if (limite.maxEnCurso > 0 && !limite.ocupar()) {
+            limite.porConcurrencia.increment();
+            rechazar(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1, "Servicio saturado, intente más tarde");
+            return;
+        }
+
+        boolean liberarAlSalir = true;
+        try {
+            chain.doFilter(request, response);
+            // En las solicitudes asíncronas el lugar se libera cuando terminan de verdad
+            if (limite.maxEnCurso > 0 && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Liberar(limite));
+                liberarAlSalir = false;
+            }
+        } finally {
+            if (limite.maxEnCurso > 0 && liberarAlSalir) {
+                limite.liberar();
+            }
+        }
+    }
+
+    // La ruta como la compara Spring MVC al elegir el controlador: decodificada y sin los parámetros
+    // ";..." de cada segmento. Con la URI cruda, "/firebase;x/login" o "/%66irebase/login" llegarían
+    // a /firebase/login sin pasar por sus límites.
+    private static String ruta(HttpServletRequest request) {
+        RequestPath path = ServletRequestPathUtils.hasParsedRequestPath(request)
+            ? ServletRequestPathUtils.getParsedRequestPath(request)
+            : ServletRequestPathUtils.parseAndCache(request);
+        StringBuilder ruta = new StringBuilder();
+        for (PathContainer.Element elemento : path.pathWithinApplication().elements()) {
+            ruta.append(elemento instanceof PathContainer.PathSegment segmento
+                ? segmento.valueToMatch()
+                : elemento.value());
+        }
+        return ruta.toString();
+    }
+
+    // "/firebase/user/123" -> "user"
+    private static String endpoint(String ruta) {
+        int fin = ruta.indexOf('/', PREFIJO.length());
+        return fin < 0 ? ruta.substring(PREFIJO.length()) : ruta.substring(PREFIJO.length(), fin);
+    }
+
+    // El encabezado configurado (por ejemplo, el que pone el balanceador) o la IP de la conexión
+    private String cliente(HttpServletRequest request) {
+        if (headerCliente != null) {
+            String valor = request.getHeader(headerCliente);
+            if (valor != null && !valor.isBlank()) {
+                int coma = valor.indexOf(',');
+                return (coma < 0 ? valor : valor.substring(0, coma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static long segundos(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void rechazar(HttpServletResponse response, int estado, long reintentarEn, String mensaje)
+            throws IOException {
+        response.setStatus(estado);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(reintentarEn));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getOutputStream().write(
+            ("{\"success\":false,\"message\":\"" + mensaje + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Limite> leer(String configuracion, MetricsRegistry metrics) {
+        Map<String, Limite> limites = new HashMap<>();
+        for (String parte : configuracion.split(",")) {
+            if (parte.isBlank()) {
+                continue;
+            }
+            String[] nombreYValores = parte.trim().split(":");
+            String[] valores = nombreYValores.length == 2 ? nombreYValores[1].split("/") : new String[0];
+            if (valores.length != 3) {
+                throw new IllegalArgumentException("Límite inválido (se espera endpoint:porSegundo/ráfaga/enCurso): " + parte);
+            }
+            String nombre = nombreYValores[0].trim();
+            try {
+                limites.put(nombre, new Limite(nombre, Double.parseDouble(valores[0].trim()),
+                    Integer.parseInt(valores[1].trim()), Integer.parseInt(valores[2].trim()), metrics));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Límite inválido: " + parte, e);
+            }
+        }
+        return limites;
+    }
+
+    // Límites de un endpoint y su contador de solicitudes en curso
+    private static final class Limite {
+        private final String nombre;
+        private final double porSegundo;
+        private final int rafaga;
+        private final int maxEnCurso;
+        private final AtomicInteger enCurso = new AtomicInteger();
+        private final LongAdder porTasa;
+        private final LongAdder porConcurrencia;
+
+        Limite(String nombre, double porSegundo, int rafaga, int maxEnCurso, MetricsRegistry metrics) {
+            this.nombre = nombre;
+            this.porSegundo = porSegundo;
+            this.rafaga = Math.max(1, rafaga);
+            this.maxEnCurso = maxEnCurso;
+
+            String ayuda = "Solicitudes rechazadas por el control de admisión";
+            this.porTasa = metrics.counter("admission_rejected_total", ayuda,
+                "endpoint", nombre, "reason", "rate_limit");
+            this.porConcurrencia = metrics.counter("admission_rejected_total", ayuda,
+                "endpoint", nombre, "reason", "concurrency");
+            metrics.gauge("admission_in_flight", "Solicitudes admitidas en curso por endpoint",
+                enCurso::get, "endpoint", nombre);
+        }
+
+        // Ocupa un lugar si hay; sin bloqueos
+        boolean ocupar() {
+            while (true) {
+                int actual = enCurso.get();
+                if (actual >= maxEnCurso) {
+                    return false;
+                }
+                if (enCurso.compareAndSet(actual, actual + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void liberar() {
+            enCurso.decrementAndGet();
+        }
+    }
+
+    // Libera el lugar una sola vez, aunque lleguen varios eventos (por ejemplo, error y luego fin)
+    private static final class Liberar implements AsyncListener {
+        private final Limite limite;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        Liberar(Limite limite) {
+            this.limite = limite;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void liberar() {
+            if (liberado.compareAndSet(false, true)) {
+                limite.liberar();
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.app.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubeta de fichas sin bloqueos, implementada como GCRA (generic cell rate algorithm).
+ *
+ * En lugar de contar fichas y rellenarlas con un hilo, guarda una sola marca de tiempo:
+ * la hora teórica en que llegaría la próxima solicitud si todas respetaran la tasa.
+ * Una solicitud se admite si esa hora no está más adelante que la ráfaga permitida;
+ * al admitirla la marca avanza un intervalo. Todo se resuelve con un compareAndSet.
+ */
+public final class TokenBucket {
+
+    private final long intervaloNanos;
+    private final long toleranciaNanos;
+    private final AtomicLong horaTeorica;
+
+    /**
+     * `porSegundo` solicitudes por segundo en promedio, con ráfagas de hasta `rafaga` seguidas.
+     */
+    public TokenBucket(double porSegundo, int rafaga, long ahoraNanos) {
+        if (porSegundo <= 0 || rafaga < 1) {
+            throw new IllegalArgumentException("La tasa y la ráfaga deben ser positivas");
+        }
+        this.intervaloNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / porSegundo));
+        this.toleranciaNanos = intervaloNanos * (rafaga - 1);
+        this.horaTeorica = new AtomicLong(ahoraNanos);
+    }
+
+    /**
+     * Intenta tomar una ficha. Devuelve 0 si se admite, o cuántos nanosegundos faltan
+     * para que haya una disponible.
+     */
+    public long intentar(long ahoraNanos) {
+        while (true) {
+            long actual = horaTeorica.get();
+            long base = actual - ahoraNanos > 0 ? actual : ahoraNanos;
+            long espera = base - ahoraNanos - toleranciaNanos;
+            if (espera > 0) {
+                return espera;
+            }
+            if (horaTeorica.compareAndSet(actual, base + intervaloNanos)) {
+                return 0;
+            }
+        }
+    }
+}
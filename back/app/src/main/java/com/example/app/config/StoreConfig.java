@@ -0,0 +1,99 @@
+package com.example.app.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.app.store.DocumentStore;
+import com.example.app.store.FirestoreDocumentStore;
+import com.example.app.store.InMemoryDocumentStore;
+import com.example.app.store.LatencyInjectingDocumentStore;
+import com.example.app.store.LocalLogDocumentStore;
+import com.example.app.store.ResilientDocumentStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.cloud.FirestoreClient;
+
+// Elige el almacén de documentos según app.store.type: firestore (por omisión), memory o local.
+// Con app.store.fault.* distintos de 0, los almacenes memory y local se envuelven con latencia y fallos inyectados.
+@Configuration
+public class StoreConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StoreConfig.class);
+
+    @Value("${app.store.fault.latency-ms:0}")
+    private long faultLatencyMs;
+
+    @Value("${app.store.fault.slow-rate:0}")
+    private double faultSlowRate;
+
+    @Value("${app.store.fault.slow-ms:0}")
+    private long faultSlowMs;
+
+    @Value("${app.store.fault.failure-rate:0}")
+    private double faultFailureRate;
+
+    @Bean
+    @ConditionalOnProperty(name = "app.store.type", havingValue = "firestore", matchIfMissing = true)
+    public DocumentStore firestoreDocumentStore(CompletableFuture<FirebaseApp> firebaseApp) {
+        // No espera a Firebase: el almacén empieza a atender cuando la inicialización termina
+        return new FirestoreDocumentStore(firebaseApp.thenApply(FirestoreClient::getFirestore));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.store.type", havingValue = "memory")
+    public DocumentStore inMemoryDocumentStore() {
+        return conFallos(new InMemoryDocumentStore());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.store.type", havingValue = "local")
+    public DocumentStore localLogDocumentStore(@Value("${app.store.local.directory:data}") String directory,
+                                               @Value("${app.store.local.segment-size-mb:64}") int segmentSizeMb,
+                                               @Value("${app.store.local.compaction-threshold:0.5}") double compactionThreshold,
+                                               @Value("${app.store.local.sync-interval-ms:1000}") long syncIntervalMs,
+                                               ObjectMapper objectMapper) throws IOException {
+        return conFallos(new LocalLogDocumentStore(Path.of(directory), segmentSizeMb * 1024 * 1024,
+            compactionThreshold, syncIntervalMs, objectMapper));
+    }
+
+    // Presupuesto de latencia, hedge y cortocircuito de las lecturas de FirebaseService
+    @Bean
+    public ResilientDocumentStore.Opciones resilienciaLecturas(
+            @Value("${firebase.resilience.enabled:true}") boolean enabled,
+            @Value("${firebase.resilience.budget-ms:2000}") long budgetMs,
+            @Value("${firebase.resilience.hedge-percentile:0.95}") double hedgePercentile,
+            @Value("${firebase.resilience.hedge-min-ms:20}") long hedgeMinMs,
+            @Value("${firebase.resilience.breaker.window:100}") int window,
+            @Value("${firebase.resilience.breaker.failure-rate:0.5}") double failureRate,
+            @Value("${firebase.resilience.breaker.open-seconds:10}") long openSeconds,
+            @Value("${firebase.resilience.last-known-good.max-size:10000}") long lastKnownGoodMaxSize) {
+        return new ResilientDocumentStore.Opciones(enabled, budgetMs, hedgePercentile, hedgeMinMs,
+            window, failureRate, Duration.ofSeconds(openSeconds), lastKnownGoodMaxSize);
+    }
+
+    private DocumentStore conFallos(DocumentStore store) {
+        if (faultLatencyMs == 0 && faultSlowRate == 0 && faultFailureRate == 0) {
+            return store;
+        }
+        LatencyInjectingDocumentStore conFallos = new LatencyInjectingDocumentStore(store);
+        conFallos.setLatenciaMs(faultLatencyMs);
+        conFallos.setLentas(faultSlowRate, faultSlowMs);
+        conFallos.setTasaFallos(faultFailureRate);
+        log.atWarn()
+            .addKeyValue("latencyMs", faultLatencyMs)
+            .addKeyValue("slowRate", faultSlowRate)
+            .addKeyValue("slowMs", faultSlowMs)
+            .addKeyValue("failureRate", faultFailureRate)
+            .log("Almacén con fallos inyectados");
+        return conFallos;
+    }
+}
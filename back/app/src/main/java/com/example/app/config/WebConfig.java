@@ -1,12 +1,21 @@
 package com.example.app.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.app.metrics.HttpMetricsInterceptor;
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.tracing.TracingInterceptor;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -15,4 +24,12 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
-}
\ No newline at end of file
+
+    // Registra qué método del controlador atiende cada solicitud para las métricas HTTP,
+    // y la etapa del controlador en las solicitudes trazadas
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HttpMetricsInterceptor(metricsRegistry));
+        registry.addInterceptor(new TracingInterceptor());
+    }
+}
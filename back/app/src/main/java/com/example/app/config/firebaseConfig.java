@@ -1,51 +1,66 @@
 package com.example.app.config;
 
+import com.example.app.metrics.MetricsRegistry;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 
-import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+// Solo se inicializa Firebase cuando los documentos se guardan en Firestore
 @Configuration
+@ConditionalOnProperty(name = "app.store.type", havingValue = "firestore", matchIfMissing = true)
 public class firebaseConfig {
     
     private static final String FIREBASE_CONFIG_PATH = "clase10-a080a-firebase-adminsdk-fbsvc-f9a9e93de4.json";
+
+    private static final Logger log = LoggerFactory.getLogger(firebaseConfig.class);
     
-    @PostConstruct
-    public void initialize() {
-        try {
-            if (FirebaseApp.getApps().isEmpty()) {
-                ClassPathResource resource = new ClassPathResource(FIREBASE_CONFIG_PATH);
-                
-                FirebaseOptions options = FirebaseOptions.builder()
-                    .setCredentials(GoogleCredentials.fromStream(resource.getInputStream()))
-                    .build();
-                
-                FirebaseApp.initializeApp(options);
-                
-                System.out.println("Conexión con Firebase inicializada exitosamente");
-            } else {
-                System.out.println("Firebase ya está inicializado");
+    // Firebase se inicializa una sola vez, en un hilo aparte: el arranque de Spring no espera a que
+    // se lean las credenciales. El futuro se completa cuando Firebase está listo (o con el error).
+    @Bean
+    public CompletableFuture<FirebaseApp> firebaseApp(MetricsRegistry metrics) {
+        CompletableFuture<FirebaseApp> app = new CompletableFuture<>();
+        AtomicLong duracionNanos = new AtomicLong(-1);
+        metrics.gauge("firebase_init_seconds", "Tiempo que tardó la inicialización de Firebase",
+            () -> duracionNanos.get() < 0 ? Double.NaN : duracionNanos.get() / 1e9);
+
+        Thread hilo = new Thread(() -> {
+            long inicio = System.nanoTime();
+            try {
+                app.complete(inicializar());
+                duracionNanos.set(System.nanoTime() - inicio);
+                log.atInfo().addKeyValue("durationMs", duracionNanos.get() / 1_000_000)
+                    .log("Conexión con Firebase inicializada");
+            } catch (IOException | RuntimeException e) {
+                log.atError().setCause(e).log("Error al inicializar Firebase");
+                app.completeExceptionally(e);
             }
-        } catch (IOException e) {
-            System.err.println("Error al inicializar Firebase: " + e.getMessage());
-            e.printStackTrace();
-        }
+        }, "firebase-init");
+        hilo.setDaemon(true);
+        hilo.start();
+        return app;
     }
-    
-    @Bean
-    public FirebaseApp firebaseApp() throws IOException {
-        if (FirebaseApp.getApps().isEmpty()) {
-            ClassPathResource resource = new ClassPathResource(FIREBASE_CONFIG_PATH);
+
+    private static FirebaseApp inicializar() throws IOException {
+        // Con devtools el contexto se reinicia en la misma JVM y la app anterior sigue registrada
+        if (!FirebaseApp.getApps().isEmpty()) {
+            return FirebaseApp.getInstance();
+        }
+        try (InputStream credenciales = new ClassPathResource(FIREBASE_CONFIG_PATH).getInputStream()) {
             FirebaseOptions options = FirebaseOptions.builder()
-                .setCredentials(GoogleCredentials.fromStream(resource.getInputStream()))
+                .setCredentials(GoogleCredentials.fromStream(credenciales))
                 .build();
             return FirebaseApp.initializeApp(options);
         }
-        return FirebaseApp.getInstance();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.example.app.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.app.session.Session;
+import com.example.app.session.SessionStore;
+
+/**
+ * Lectura del token de sesión ("Authorization: Bearer <token>") y comprobación de rol
+ * para los endpoints que solo puede usar un administrador.
+ */
+final class Autorizacion {
+
+    private Autorizacion() {
+    }
+
+    static String token(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return authorization.substring(7).trim();
+    }
+
+    /**
+     * Devuelve la sesión del encabezado si es de un administrador. Sin sesión válida
+     * responde 401; con una sesión de otro rol, 403.
+     */
+    static Session exigirAdmin(SessionStore sessionStore, String authorization) {
+        Session sesion = sessionStore.validar(token(authorization));
+        if (sesion == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Sesión inválida o vencida");
+        }
+        if (!Session.ADMIN.equals(sesion.getRole())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Se requiere una sesión de administrador");
+        }
+        return sesion;
+    }
+}
@@ -1,117 +1,471 @@
 package com.example.app.controller;
 
+import static com.example.app.util.Errores.causa;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 
+import com.example.app.service.BulkImportService;
+import com.example.app.service.ChangeBroadcaster;
+import com.example.app.service.DocumentResult;
 import com.example.app.service.FirebaseService;
+import com.example.app.service.IdempotencyCache;
+import com.example.app.session.Session;
+import com.example.app.session.SessionStore;
+import com.example.app.store.DocumentPage;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
+// Los endpoints devuelven CompletableFuture: Spring MVC libera el hilo de Tomcat
+// mientras Firestore responde y escribe la respuesta cuando el futuro se completa.
 @RestController
 @RequestMapping("/firebase")
 @CrossOrigin(origins = "http://localhost:5173")
 public class FirebaseController {
 
+    private static final Logger log = LoggerFactory.getLogger(FirebaseController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private FirebaseService firebaseService;
 
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private IdempotencyCache idempotencyCache;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Colecciones que se pueden exportar y cuántas páginas se piden por adelantado
+    @Value("${firebase.export.collections:logins,test_connection}")
+    private Set<String> exportCollections;
+
+    @Value("${firebase.export.max-page-size:1000}")
+    private int exportMaxPageSize;
+
+    @Value("${firebase.export.prefetch-pages:2}")
+    private int exportPrefetchPages;
+
+    // Colecciones en las que se puede importar
+    @Value("${firebase.import.collections:logins,test_connection}")
+    private Set<String> importCollections;
+
+    // Colecciones que se pueden leer con /documents y cuántos IDs se aceptan por solicitud
+    @Value("${firebase.batch-read.collections:logins,test_connection}")
+    private Set<String> batchReadCollections;
+
+    @Value("${firebase.batch-read.max-ids:500}")
+    private int batchReadMaxIds;
+
+    // Colecciones cuyos cambios se pueden seguir por /stream
+    @Value("${firebase.stream.collections:logins}")
+    private Set<String> streamCollections;
+
+    // Guardar también cada login como documento en la colección "logins" (sin esperar la escritura)
+    @Value("${app.session.persist:true}")
+    private boolean persistSessions;
+
+    // Clave que da rol de administrador a la sesión si viene como "admin_key" en el login; vacía, ninguna
+    @Value("${app.session.admin-key:}")
+    private String adminKey;
+
+    // Las escrituras se deduplican con Idempotency-Key (o el hash del cuerpo): un reintento
+    // dentro de la ventana recibe la respuesta original sin volver a escribir
     @PostMapping("/test")
-    public ResponseEntity<Map<String, String>> testConnection(@RequestBody Map<String, Object> data) {
-        try {
-            String id = UUID.randomUUID().toString();
-            
-            // Añadimos la información recibida al documento
-            Map<String, Object> testData = new HashMap<>(data);
-            testData.put("timestamp", System.currentTimeMillis());
-            
-            String result = firebaseService.saveDocument("test_connection", id, testData);
-            
-            Map<String, String> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("timestamp", result);
-            response.put("id", id);
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("status", "error");
-            error.put("message", e.getMessage());
-            
-            return ResponseEntity.internalServerError().body(error);
-        }
-    }
-    
+    public CompletableFuture<ResponseEntity<?>> testConnection(@RequestBody Map<String, Object> data,
+                                                               @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
+        String clave = idempotencyCache.clave("/firebase/test", idempotencyKey, data);
+        return idempotencyCache.ejecutar(clave, data, () -> guardarPrueba(data));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> guardarPrueba(Map<String, Object> data) {
+        String id = UUID.randomUUID().toString();
+
+        // Añadimos la información recibida al documento
+        Map<String, Object> testData = new HashMap<>(data);
+        testData.put("timestamp", System.currentTimeMillis());
+
+        return firebaseService.saveDocumentAsync("test_connection", id, testData)
+            .<ResponseEntity<?>>thenApply(result -> {
+                Map<String, String> response = new HashMap<>();
+                response.put("status", "success");
+                response.put("timestamp", result);
+                response.put("id", id);
+
+                return ResponseEntity.ok(response);
+            })
+            .exceptionally(e -> {
+                Map<String, String> error = new HashMap<>();
+                error.put("status", "error");
+                error.put("message", causa(e).getMessage());
+
+                return ResponseEntity.status(estadoDeError(e)).body(error);
+            });
+    }
+
+    // Cada login crea una sesión nueva: solo se deduplica si el cliente manda Idempotency-Key,
+    // nunca por el hash del cuerpo (devolvería el token de una sesión que pudo haberse cerrado)
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody Map<String, Object> loginRequest) {
-        try {
-            String email = (String) loginRequest.get("email");
-            String password = (String) loginRequest.get("password");
-            
-            // Validación básica
-            if (email == null || password == null) {
-                return ResponseEntity.badRequest().body(Map.of(
+    public CompletableFuture<ResponseEntity<?>> loginUser(@RequestBody Map<String, Object> loginRequest,
+                                                          @RequestHeader(value = IdempotencyCache.HEADER, required = false) String idempotencyKey) {
+        String clave = idempotencyCache.claveExplicita("/firebase/login", idempotencyKey);
+        return idempotencyCache.ejecutar(clave, loginRequest, () -> iniciarSesion(loginRequest));
+    }
+
+    private CompletableFuture<ResponseEntity<?>> iniciarSesion(Map<String, Object> loginRequest) {
+        String email = (String) loginRequest.get("email");
+        String password = (String) loginRequest.get("password");
+
+        // Validación básica
+        if (email == null || password == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(Map.of(
+                "success", false,
+                "message", "Email y contraseña son requeridos"
+            )));
+        }
+
+        // Crear documento para guardar en Firebase
+        Map<String, Object> loginData = new HashMap<>();
+        loginData.put("email", email);
+        loginData.put("timestamp", System.currentTimeMillis());
+        loginData.put("success", true);
+
+        // Añadir información adicional si existe
+        if (loginRequest.containsKey("additionalInfo")) {
+            loginData.put("additionalInfo", loginRequest.get("additionalInfo"));
+        }
+
+        // La sesión vive en memoria: el login responde sin esperar a Firestore
+        Session sesion = sessionStore.crear(email, esAdmin(loginRequest.get("admin_key")) ? Session.ADMIN : null);
+        String loginId = sesion.getId();
+
+        // Si está habilitado, el documento del login se guarda en segundo plano
+        if (persistSessions) {
+            firebaseService.saveDocumentAsync("logins", loginId, loginData)
+                .exceptionally(e -> {
+                    log.atWarn().addKeyValue("loginId", loginId).setCause(causa(e)).log("No se pudo guardar el login");
+                    return null;
+                });
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Login exitoso");
+        response.put("loginId", loginId);
+        response.put("token", sesion.getToken());
+        response.put("expiresAt", sesion.getExpiraEnIso());
+        response.put("timestamp", new Date().toString());
+
+        return CompletableFuture.completedFuture(ResponseEntity.ok(response));
+    }
+
+    // Compara en tiempo constante para no revelar la clave por la demora de la respuesta
+    private boolean esAdmin(Object clave) {
+        return !adminKey.isEmpty() && clave instanceof String texto
+            && MessageDigest.isEqual(texto.getBytes(StandardCharsets.UTF_8), adminKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Datos de la sesión del token enviado en "Authorization: Bearer <token>"
+    @GetMapping("/session")
+    public ResponseEntity<?> getSession(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Session sesion = sessionStore.validar(Autorizacion.token(authorization));
+        if (sesion == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "success", false,
+                "message", "Sesión inválida o vencida"
+            ));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("loginId", sesion.getId());
+        response.put("email", sesion.getEmail());
+        response.put("role", sesion.getRole());
+        response.put("expiresAt", sesion.getExpiraEnIso());
+        return ResponseEntity.ok(response);
+    }
+
+    // Cierra la sesión del token
+    @DeleteMapping("/session")
+    public ResponseEntity<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return sessionStore.cerrar(Autorizacion.token(authorization))
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    // Primero se busca la sesión en memoria: el documento del login se guarda en segundo plano (o no
+    // se guarda, con app.session.persist=false). Si no hay sesión activa se lee el documento.
+    @GetMapping("/user/{loginId}")
+    public CompletableFuture<ResponseEntity<?>> getUserData(@PathVariable String loginId) {
+        Session sesion = sessionStore.buscar(loginId);
+        if (sesion != null) {
+            Map<String, Object> userData = new HashMap<>();
+            userData.put("email", sesion.getEmail());
+            userData.put("timestamp", sesion.getCreadaEn());
+            userData.put("success", true);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(userData));
+        }
+
+        return firebaseService.getDocumentAsync("logins", loginId)
+            .<ResponseEntity<?>>thenApply(userData -> {
+                if (userData == null) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                return ResponseEntity.ok(userData);
+            })
+            .exceptionally(e -> {
+                log.atError().addKeyValue("loginId", loginId).setCause(causa(e)).log("Error al obtener datos de usuario");
+                return ResponseEntity.status(estadoDeError(e)).body(Map.of(
                     "success", false,
-                    "message", "Email y contraseña son requeridos"
+                    "message", "Error al obtener datos de usuario: " + causa(e).getMessage()
                 ));
+            });
+    }
+
+    // Lee varios documentos en una sola solicitud, con el cuerpo {"ids": ["a", "b", ...]}. Los IDs
+    // repetidos se leen una vez y cada uno tiene su resultado ("found" con data, "not_found" o "error"),
+    // así que si falla parte de la lectura igual se responde 200 con el resto.
+    @PostMapping("/documents/{collection}")
+    public CompletableFuture<ResponseEntity<?>> getDocuments(@PathVariable String collection,
+                                                             @RequestBody Map<String, Object> body) {
+        if (!batchReadCollections.contains(collection)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No se puede leer la colección: " + collection);
+        }
+        if (!(body.get("ids") instanceof List<?> lista) || lista.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids debe ser una lista no vacía");
+        }
+        if (lista.size() > batchReadMaxIds) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Se aceptan hasta " + batchReadMaxIds + " ids");
+        }
+        List<String> ids = new ArrayList<>(lista.size());
+        for (Object id : lista) {
+            if (!(id instanceof String texto) || texto.isBlank() || texto.contains("/")) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ID inválido: " + id);
             }
-            
-            // Crear documento para guardar en Firebase
-            Map<String, Object> loginData = new HashMap<>();
-            loginData.put("email", email);
-            loginData.put("timestamp", System.currentTimeMillis());
-            loginData.put("success", true);
-            
-            // Añadir información adicional si existe
-            if (loginRequest.containsKey("additionalInfo")) {
-                loginData.put("additionalInfo", loginRequest.get("additionalInfo"));
+            ids.add(texto);
+        }
+
+        return firebaseService.getDocuments(collection, ids)
+            .thenApply(resultados -> {
+                int encontrados = 0;
+                int fallidos = 0;
+                for (DocumentResult resultado : resultados.values()) {
+                    if (DocumentResult.ENCONTRADO.equals(resultado.getStatus())) {
+                        encontrados++;
+                    } else if (DocumentResult.ERROR.equals(resultado.getStatus())) {
+                        fallidos++;
+                    }
+                }
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("found", encontrados);
+                response.put("notFound", resultados.size() - encontrados - fallidos);
+                response.put("failed", fallidos);
+                response.put("results", resultados);
+                return ResponseEntity.ok(response);
+            });
+    }
+
+    // Cambios de un documento (/stream/logins/{loginId}) o de toda la colección como server-sent events,
+    // en lugar de consultar /user/{loginId} periódicamente. Con un documento, primero llega su estado
+    // actual ("snapshot") y después cada cambio ("change").
+    // Un documento se puede seguir con el mismo acceso que /user/{loginId}; toda la colección entrega
+    // cada documento nuevo o cambiado, como /export: solo con una sesión de administrador.
+    @GetMapping(value = {"/stream/{collection}", "/stream/{collection}/{id}"}, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String collection, @PathVariable(required = false) String id,
+                             @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (id == null) {
+            Autorizacion.exigirAdmin(sessionStore, authorization);
+        }
+        if (!streamCollections.contains(collection)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No se pueden seguir los cambios de la colección: " + collection);
+        }
+        try {
+            return changeBroadcaster.suscribir(collection, id);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    // Exporta una colección como NDJSON ({"id": ..., "data": {...}} por línea), página por página.
+    // from y to filtran por el campo timestamp (milisegundos o fecha ISO-8601); to no se incluye.
+    // Se escribe directo a la respuesta, como /api/pedidos/calcular/lote, para que una exportación
+    // larga no quede sujeta al tiempo máximo de las solicitudes asíncronas.
+    // Es un volcado completo de la colección: solo con una sesión de administrador.
+    @GetMapping(value = "/export/{collection}", produces = NDJSON)
+    public void exportCollection(@PathVariable String collection,
+                                 @RequestParam(required = false) String from,
+                                 @RequestParam(required = false) String to,
+                                 @RequestParam(defaultValue = "500") int pageSize,
+                                 @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                 HttpServletResponse response) throws IOException {
+        Autorizacion.exigirAdmin(sessionStore, authorization);
+        if (!exportCollections.contains(collection)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "La colección no se puede exportar: " + collection);
+        }
+        if (pageSize <= 0 || pageSize > exportMaxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "pageSize debe estar entre 1 y " + exportMaxPageSize);
+        }
+        Long desde = hora("from", from);
+        Long hasta = hora("to", to);
+
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        try (Stream<DocumentPage> paginas = firebaseService.queryPages(collection, desde, hasta, pageSize, exportPrefetchPages);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            try {
+                Iterator<DocumentPage> iterador = paginas.iterator();
+                while (iterador.hasNext()) {
+                    for (DocumentPage.Entry documento : iterador.next().getDocumentos()) {
+                        generator.writeStartObject();
+                        generator.writeStringField("id", documento.getId());
+                        generator.writeObjectField("data", documento.getData());
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+                    }
+                    // Cada página se envía apenas está escrita
+                    generator.flush();
+                }
+            } catch (RuntimeException e) {
+                if (!response.isCommitted()) {
+                    throw new ResponseStatusException(estadoDeError(e), "Error al exportar: " + causa(e).getMessage());
+                }
+                // Ya se enviaron documentos: el error se informa como última línea
+                generator.writeStartObject();
+                generator.writeStringField("error", "Exportación incompleta: " + causa(e).getMessage());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
             }
-            
-            // Generar ID único para el login y guardar en Firebase
-            String loginId = UUID.randomUUID().toString();
-            firebaseService.saveDocument("logins", loginId, loginData);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Login exitoso");
-            response.put("loginId", loginId);
-            response.put("timestamp", new Date().toString());
-            
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().body(Map.of(
-                "success", false,
-                "message", "Error interno: " + e.getMessage()
-            ));
         }
     }
 
-    @GetMapping("/user/{loginId}")
-    public ResponseEntity<?> getUserData(@PathVariable String loginId) {
+    // Importa un archivo NDJSON (un documento por línea, o el formato de /export) en la colección.
+    // El cuerpo se lee mientras llega y la respuesta va informando el progreso; al final se envía
+    // un resumen con los errores por número de línea.
+    // Puede sobrescribir cualquier documento de la colección: solo con una sesión de administrador.
+    @PostMapping(value = "/import/{collection}", consumes = NDJSON, produces = NDJSON)
+    public void importCollection(@PathVariable String collection,
+                                 @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                 HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        Autorizacion.exigirAdmin(sessionStore, authorization);
+        if (!importCollections.contains(collection)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No se puede importar en la colección: " + collection);
+        }
+
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        try {
+            bulkImportService.importar(collection, request.getInputStream(), response.getOutputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Importación interrumpida");
+        }
+    }
+
+    // Acepta milisegundos desde 1970 o una fecha ISO-8601 (2024-05-01T00:00:00Z)
+    private static Long hora(String nombre, String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
         try {
-            Map<String, Object> userData = firebaseService.getDocument("logins", loginId);
-            
-            if (userData == null) {
-                return ResponseEntity.notFound().build();
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            try {
+                return Instant.parse(valor).toEpochMilli();
+            } catch (DateTimeParseException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, nombre + " no es una fecha válida: " + valor);
             }
-            
-            return ResponseEntity.ok(userData);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().body(Map.of(
-                "success", false,
-                "message", "Error al obtener datos de usuario: " + e.getMessage()
-            ));
         }
     }
-}
\ No newline at end of file
+
+    // Indica si el almacén de documentos ya puede atender (Firebase se inicializa en segundo plano)
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        CompletableFuture<Void> listo = firebaseService.ready();
+        if (listo.isDone() && !listo.isCompletedExceptionally()) {
+            return ResponseEntity.ok(Map.of("ready", true));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("ready", false);
+        if (listo.isCompletedExceptionally()) {
+            response.put("message", "Error al inicializar: " + causa(listo.handle((v, e) -> e).join()).getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
+    // Estado de los compartimentos (bulkheads) por colección y de la caché de lectura
+    @GetMapping("/stats")
+    public Map<String, Object> getStats() {
+        return Map.of(
+            "bulkheads", firebaseService.getBulkheadStats(),
+            "cache", firebaseService.getCacheStats()
+        );
+    }
+
+    // Tiempo agotado -> 504; compartimento lleno -> 503; cualquier otro error -> 500
+    private static HttpStatus estadoDeError(Throwable e) {
+        Throwable causa = causa(e);
+        if (causa instanceof TimeoutException) {
+            return HttpStatus.GATEWAY_TIMEOUT;
+        }
+        if (causa instanceof RejectedExecutionException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
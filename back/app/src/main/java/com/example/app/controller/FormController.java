@@ -1,30 +1,53 @@
 package com.example.app.controller;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.example.app.model.FormFactory;
 import com.example.app.model.LoginRequest;
-import com.example.app.factory.AdminFormFactory;
-import com.example.app.factory.FormField;
-import com.example.app.factory.GuestFormFactory;
+import com.example.app.service.FormSchemaService;
+import com.example.app.service.FormSchemaService.FormDelta;
+import com.example.app.service.FormSchemaService.FormSchema;
+import com.example.app.service.FormValidator.FieldError;
+import com.example.app.session.Session;
+import com.example.app.session.SessionStore;
 
 
 @RestController
 @RequestMapping("/form")
-@CrossOrigin(origins = "http://localhost:5173")
+@CrossOrigin(origins = "http://localhost:5173", exposedHeaders = {"ETag", "X-Form-Version"})
 public class FormController {
 
+    // Versión del esquema entregado; es la que el cliente envía en /form/{role}/delta?since=
+    private static final String HEADER_VERSION = "X-Form-Version";
+
+    @Autowired
+    private FormSchemaService formSchemaService;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    // Envíos como máximo por solicitud en /form/{role}/submit/batch
+    @Value("${app.form.max-batch-size:1000}")
+    private int maxBatchSize;
+
     // Recibe un objeto JSON con la información de inicio de sesión (correo y contraseña)
     @PostMapping("/login")
         public Map<String, String> login(@RequestBody LoginRequest request) {
@@ -33,37 +56,102 @@ public class FormController {
             String email = request.getEmail();
             String password = request.getPassword();
 
+            String role;
             if ("admin@email.com".equals(email) && "admin123".equals(password)) {
-                return Map.of("role", "admin");
+                role = "admin";
             } else if ("guest@email.com".equals(email) && "guest123".equals(password)) {
-                return Map.of("role", "guest");
+                role = "guest";
             } else {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Credenciales inválidas");
             }
+
+            // Se entrega un token de sesión para identificar al usuario en las siguientes solicitudes.
+            // El rol solo elige el formulario: estas credenciales de demostración están en el repositorio,
+            // así que la sesión nunca es de administrador (eso requiere app.session.admin-key en /firebase/login)
+            Session sesion = sessionStore.crear(email, null);
+            return Map.of("role", role, "token", sesion.getToken(), "expiresAt", sesion.getExpiraEnIso());
         }
 
 
 
     // Este método maneja las solicitudes GET a la ruta /form/{role}, donde {role} es un parámetro en la URL
     @GetMapping("/{role}")
-    public List<FormField> getForm(@PathVariable String role) {
-        // Se crea una referencia a un objeto de tipo FormFactory, que será inicializado según el rol
-        FormFactory factory;
-
-
-        // Dependiendo del valor de 'role' en la URL, se inicializa la fábrica correspondiente
-        switch (role.toLowerCase()) {
-            case "admin":
-                factory = new AdminFormFactory(); // Se crea una fábrica para formularios de administrador
-                break;
-            case "guest":
-                factory = new GuestFormFactory();
-                break;
-            default:
-                throw new IllegalArgumentException("Rol no válido");
+    public ResponseEntity<byte[]> getForm(@PathVariable String role) {
+        // El esquema de cada rol se genera una sola vez con su FormFactory y se guarda ya serializado
+        FormSchema schema = formSchemaService.obtener(role);
+
+        // Spring compara el ETag con If-None-Match: si coincide responde 304 sin cuerpo
+        return ResponseEntity.ok()
+            .eTag(schema.getEtag())
+            .header(HEADER_VERSION, schema.getVersion())
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(schema.getJson());
+    }
+
+    // Devuelve solo los campos agregados, cambiados y quitados desde la versión que tiene el cliente.
+    // Si ya tiene la actual responde 304 sin cuerpo; si su versión es desconocida, reset con todos los campos.
+    @GetMapping("/{role}/delta")
+    public ResponseEntity<byte[]> getFormDelta(@PathVariable String role,
+                                               @RequestParam(required = false) String since) {
+        FormDelta delta = formSchemaService.delta(role, since);
+        if (delta == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .header(HEADER_VERSION, since)
+                .build();
+        }
+
+        return ResponseEntity.ok()
+            .header(HEADER_VERSION, delta.getVersion())
+            .cacheControl(CacheControl.noCache())
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(delta.getJson());
+    }
+
+    // Valida un envío del formulario del rol contra los campos publicados (obligatorios y tipo).
+    // Responde 200 si es válido o 422 con los errores por campo.
+    @PostMapping("/{role}/submit")
+    public ResponseEntity<Map<String, Object>> submit(@PathVariable String role,
+                                                      @RequestBody Map<String, Object> envio) {
+        FormSchema schema = formSchemaService.obtener(role);
+        List<FieldError> errores = schema.getValidator().validar(envio);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("valid", errores.isEmpty());
+        response.put("version", schema.getVersion());
+        if (!errores.isEmpty()) {
+            response.put("errors", errores);
+            return ResponseEntity.unprocessableEntity().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Valida varios envíos (un arreglo JSON). Solo se detallan los inválidos, con su posición en el arreglo;
+    // responde 422 si hay al menos uno.
+    @PostMapping("/{role}/submit/batch")
+    public ResponseEntity<Map<String, Object>> submitBatch(@PathVariable String role,
+                                                           @RequestBody List<Map<String, Object>> envios) {
+        if (envios.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Se aceptan hasta " + maxBatchSize + " envíos por lote");
+        }
+
+        FormSchema schema = formSchemaService.obtener(role);
+        List<List<FieldError>> resultados = schema.getValidator().validarTodos(envios);
+
+        List<Map<String, Object>> invalidos = new ArrayList<>();
+        for (int i = 0; i < resultados.size(); i++) {
+            if (!resultados.get(i).isEmpty()) {
+                invalidos.add(Map.of("index", i, "errors", resultados.get(i)));
+            }
         }
 
-        // Finalmente, se retorna la lista de campos de formulario que la fábrica correspondiente genera
-        return factory.createFormFields();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("version", schema.getVersion());
+        response.put("valid", resultados.size() - invalidos.size());
+        response.put("invalid", invalidos.size());
+        response.put("results", invalidos);
+        return invalidos.isEmpty()
+            ? ResponseEntity.ok(response)
+            : ResponseEntity.unprocessableEntity().body(response);
     }
 }
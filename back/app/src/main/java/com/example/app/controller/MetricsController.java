@@ -0,0 +1,20 @@
+package com.example.app.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.app.metrics.MetricsRegistry;
+
+// Expone las métricas de la aplicación para que Prometheus las recolecte
+@RestController
+public class MetricsController {
+
+    @Autowired
+    private MetricsRegistry metricsRegistry;
+
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String metrics() {
+        return metricsRegistry.exportar();
+    }
+}
@@ -1,45 +1,123 @@
 package com.example.app.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
-import com.example.app.pedido.EnvioRapido;
-import com.example.app.pedido.EnvolturaRegalo;
 import com.example.app.pedido.Pedido;
-import com.example.app.pedido.PedidoBase;
+import com.example.app.pedido.PedidoPromocional;
+import com.example.app.pedido.ReglaPromocion;
+import com.example.app.pedido.TablaPrecios;
+import com.example.app.service.CotizacionLoteService;
+import com.example.app.service.RegistroExtras;
+import com.example.app.service.RegistroPromociones;
+import com.example.app.session.SessionStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/pedidos")
 @CrossOrigin(origins = "http://localhost:5173")
 public class PedidoController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    // Catálogo de extras con su tabla de precios precalculada; evita armar la cadena de decoradores en cada llamada
+    @Autowired
+    private RegistroExtras registroExtras;
+
+    @Autowired
+    private RegistroPromociones registroPromociones;
+
+    @Autowired
+    private CotizacionLoteService cotizacionLoteService;
+
+    @Autowired
+    private SessionStore sessionStore;
+
     @PostMapping("/calcular")
     public Map<String, Object> calcular(@RequestBody List<String> extras) {
         
-        Pedido pedido = new PedidoBase();
-
-        for (String extra : extras) {
-            switch (extra) {
-                case "envio":
-                    pedido = new EnvioRapido(pedido);
-                    break;
-                case "regalo":
-                    pedido = new EnvolturaRegalo(pedido);
-                    break;
-                // Puedes seguir agregando más decoradores aquí
-            }
-        }
+        List<String> desconocidos = new ArrayList<>(0);
+        TablaPrecios tabla = registroExtras.tabla();
+        Pedido pedido = registroPromociones.promociones()
+            .aplicar(tabla.cotizar(extras, desconocidos), extras, tabla, System.currentTimeMillis());
 
         Map<String, Object> response = new HashMap<>();
         response.put("descripcion", pedido.getDescripcion());
         response.put("costo", pedido.getCosto());
+        response.put("costoCentavos", pedido.getCostoCentavos());
+
+        // Si se aplicaron promociones se informa cuáles y el costo sin ellas
+        if (pedido instanceof PedidoPromocional promocional) {
+            response.put("costoOriginalCentavos", promocional.getCostoOriginalCentavos());
+            response.put("promociones", promocional.getPromociones());
+        }
+
+        // Los extras que no están en el catálogo se informan en lugar de ignorarse en silencio
+        if (!desconocidos.isEmpty()) {
+            response.put("desconocidos", desconocidos);
+        }
         return response;
     }
+
+    // Recibe muchas listas de extras (un arreglo JSON de arreglos, o NDJSON con una lista por línea)
+    // y responde una línea NDJSON por cotización, a medida que se van calculando
+    @PostMapping("/calcular/lote")
+    public void calcularLote(@RequestHeader(value = "Content-Type", required = false) String contentType,
+                             InputStream body, HttpServletResponse response) throws IOException {
+
+        boolean ndjson = contentType != null && contentType.startsWith(NDJSON);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            cotizacionLoteService.cotizar(body, response.getOutputStream(), ndjson);
+        } catch (JsonProcessingException e) {
+            if (!response.isCommitted()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lote inválido: " + e.getOriginalMessage());
+            }
+            // Ya se enviaron resultados: se informa el error como última línea
+            int linea = e.getLocation() != null ? e.getLocation().getLineNr() : -1;
+            response.getOutputStream().write(
+                ("{\"error\":\"Lote inválido en la línea " + linea + "\"}\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Reglas de precios vigentes
+    @GetMapping("/promociones")
+    public List<ReglaPromocion> promociones() {
+        return registroPromociones.promociones().definiciones();
+    }
+
+    // Reemplaza todas las reglas de precios de una vez; si alguna es inválida no se cambia nada.
+    // Solo con una sesión de administrador (401 sin sesión, 403 con otro rol)
+    @PutMapping("/promociones")
+    public Map<String, Object> reemplazarPromociones(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                                     @RequestBody List<ReglaPromocion> reglas) {
+        Autorizacion.exigirAdmin(sessionStore, authorization);
+        try {
+            return Map.of("reglas", registroPromociones.reemplazar(reglas).tamano());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
 }
@@ -12,10 +12,10 @@ public class AdminFormFactory implements FormFactory {
 
         return List.of(
             // Se crea un campo de tipo 'text' con la etiqueta 'Username' y que es obligatorio (true)
-            new GenericField("text", "Username", true),
+            new GenericField("username", "text", "Username", true),
 
             // Se crea un campo de tipo 'password' con la etiqueta 'Admin Key' y que también es obligatorio (true)
-            new GenericField("password", "Admin Key", true)
+            new GenericField("admin_key", "password", "Admin Key", true)
         );
     }
 }
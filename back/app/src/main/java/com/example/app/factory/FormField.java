@@ -2,6 +2,10 @@ package com.example.app.factory;
 
 public interface FormField {
 
+    // Método que retorna el identificador estable del campo. No cambia aunque cambien la etiqueta o el tipo,
+    // y es lo que permite comparar dos versiones de un formulario campo por campo.
+    String getId();
+
     // Método que retorna el tipo del campo de formulario (por ejemplo: "text", "email", "password", etc.)
     String getType(); 
 
@@ -10,9 +10,9 @@ public class GuestFormFactory implements FormFactory {
         // Se crea y retorna una lista inmutable utilizando List.of()
         // La lista contiene dos objetos de tipo GenericField que representan los campos de un formulario
         return List.of(
-            new GenericField("text", "Nickname", false),
-            new GenericField("text", "Field 1", false),
-            new GenericField("text", "Field 2", false)
+            new GenericField("nickname", "text", "Nickname", false),
+            new GenericField("field_1", "text", "Field 1", false),
+            new GenericField("field_2", "text", "Field 2", false)
         );
     }
 }
@@ -0,0 +1,98 @@
+package com.example.app.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import com.example.app.metrics.HttpMetricsInterceptor.MetricasHandler;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Mide la latencia de cada solicitud atendida por un controlador, desde que entra al
+ * filtro hasta que la respuesta queda escrita. Si el controlador devuelve un
+ * CompletableFuture, la medición termina cuando se completa la solicitud asíncrona.
+ */
+@Component
+public class HttpMetricsFilter extends OncePerRequestFilter {
+
+    private final StartupReporter startup;
+
+    public HttpMetricsFilter(StartupReporter startup) {
+        this.startup = startup;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long inicio = System.nanoTime();
+        Throwable error = null;
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            startup.solicitudAtendida();
+            // Solo se miden las solicitudes que llegaron a un método de controlador
+            MetricasHandler metricas = (MetricasHandler) request.getAttribute(HttpMetricsInterceptor.ATRIBUTO);
+            if (metricas != null) {
+                if (error == null && request.isAsyncStarted()) {
+                    request.getAsyncContext().addListener(new FinAsincrono(metricas, inicio));
+                } else if (error != null) {
+                    metricas.terminar(inicio, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, error);
+                } else {
+                    metricas.terminar(inicio, response.getStatus(), excepcionResuelta(request));
+                }
+            }
+        }
+    }
+
+    // Excepción que lanzó el controlador y que Spring ya convirtió en respuesta (por ejemplo 401 o 404)
+    private static Throwable excepcionResuelta(HttpServletRequest request) {
+        return (Throwable) request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+    }
+
+    private static final class FinAsincrono implements AsyncListener {
+        private final MetricasHandler metricas;
+        private final long inicio;
+        private Throwable error;
+
+        FinAsincrono(MetricasHandler metricas, long inicio) {
+            this.metricas = metricas;
+            this.inicio = inicio;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletRequest request = (HttpServletRequest) event.getSuppliedRequest();
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            Throwable causa = error != null ? error : excepcionResuelta(request);
+            metricas.terminar(inicio, response.getStatus(), causa);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            error = event.getThrowable() != null
+                ? event.getThrowable()
+                : new TimeoutException("Tiempo agotado en la solicitud asíncrona");
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            error = event.getThrowable();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
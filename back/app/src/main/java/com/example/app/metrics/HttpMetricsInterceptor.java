@@ -0,0 +1,73 @@
+package com.example.app.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Identifica el método del controlador que atiende cada solicitud y marca la llamada como
+ * en curso. La medición de la latencia la cierra `HttpMetricsFilter`, que envuelve toda la
+ * solicitud (también las asíncronas).
+ *
+ * Las métricas de cada método se crean la primera vez y se guardan por `Method`, así que
+ * las solicitudes siguientes no construyen nombres ni etiquetas.
+ */
+public class HttpMetricsInterceptor implements HandlerInterceptor {
+
+    static final String ATRIBUTO = HttpMetricsInterceptor.class.getName() + ".metricas";
+
+    private final MetricsRegistry metrics;
+    private final ConcurrentHashMap<Method, MetricasHandler> porMetodo = new ConcurrentHashMap<>();
+
+    public HttpMetricsInterceptor(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // En el despacho asíncrono el método ya quedó registrado en el despacho original
+        if (handler instanceof HandlerMethod metodo
+                && request.getDispatcherType() == DispatcherType.REQUEST
+                && request.getAttribute(ATRIBUTO) == null) {
+            MetricasHandler metricas = porMetodo.get(metodo.getMethod());
+            if (metricas == null) {
+                metricas = porMetodo.computeIfAbsent(metodo.getMethod(), m -> new MetricasHandler(metrics, metodo));
+            }
+            metricas.timer.iniciar();
+            request.setAttribute(ATRIBUTO, metricas);
+        }
+        return true;
+    }
+
+    // Temporizador y respuestas por clase de estado (2xx, 4xx...) de un método del controlador
+    static final class MetricasHandler {
+        private final Timer timer;
+        private final LongAdder[] respuestas = new LongAdder[6];
+
+        MetricasHandler(MetricsRegistry metrics, HandlerMethod metodo) {
+            String handler = metodo.getBeanType().getSimpleName() + "." + metodo.getMethod().getName();
+            this.timer = metrics.timer("http_server_requests_seconds",
+                "Latencia de las solicitudes HTTP por método del controlador", "handler", handler);
+            for (int clase = 1; clase < respuestas.length; clase++) {
+                respuestas[clase] = metrics.counter("http_server_responses_total",
+                    "Respuestas HTTP por método del controlador y clase de estado",
+                    "handler", handler, "status", clase + "xx");
+            }
+        }
+
+        void terminar(long inicio, int estado, Throwable error) {
+            timer.terminar(inicio, error);
+            int clase = estado / 100;
+            if (clase >= 1 && clase < respuestas.length) {
+                respuestas[clase].increment();
+            }
+        }
+    }
+}
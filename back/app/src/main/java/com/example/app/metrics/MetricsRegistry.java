@@ -0,0 +1,171 @@
+package com.example.app.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Registro de métricas de la aplicación, exportable en el formato de texto de Prometheus.
+ *
+ * Cada métrica pertenece a una familia (nombre, ayuda y tipo) y se distingue dentro de ella
+ * por sus etiquetas. Quien mide pide su temporizador o contador una sola vez y lo guarda;
+ * en el camino caliente solo se incrementan contadores, sin búsquedas ni reservas de memoria.
+ * Los valores que ya calcula otro componente (caché, compartimentos) se registran como
+ * funciones y se leen únicamente al exportar.
+ */
+@Component
+public class MetricsRegistry {
+
+    private static final String HISTOGRAMA = "histogram";
+    private static final String CONTADOR = "counter";
+    private static final String MEDIDOR = "gauge";
+
+    private final Map<String, Familia> familias = new ConcurrentHashMap<>();
+
+    /**
+     * Temporizador con las etiquetas dadas como pares clave, valor.
+     * El nombre debería terminar en _seconds; de él se derivan _in_flight y _errors_total.
+     */
+    public Timer timer(String nombre, String ayuda, String... etiquetas) {
+        return (Timer) familia(nombre, ayuda, HISTOGRAMA).series
+            .computeIfAbsent(etiquetas(etiquetas), k -> new Timer());
+    }
+
+    /**
+     * Contador con las etiquetas dadas como pares clave, valor.
+     */
+    public LongAdder counter(String nombre, String ayuda, String... etiquetas) {
+        return (LongAdder) familia(nombre, ayuda, CONTADOR).series
+            .computeIfAbsent(etiquetas(etiquetas), k -> new LongAdder());
+    }
+
+    /**
+     * Contador cuyo valor acumulado lleva otro componente; se lee al exportar.
+     */
+    public void counter(String nombre, String ayuda, DoubleSupplier valor, String... etiquetas) {
+        familia(nombre, ayuda, CONTADOR).series.put(etiquetas(etiquetas), valor);
+    }
+
+    /**
+     * Medidor cuyo valor actual se lee al exportar.
+     */
+    public void gauge(String nombre, String ayuda, DoubleSupplier valor, String... etiquetas) {
+        familia(nombre, ayuda, MEDIDOR).series.put(etiquetas(etiquetas), valor);
+    }
+
+    private Familia familia(String nombre, String ayuda, String tipo) {
+        Familia familia = familias.computeIfAbsent(nombre, n -> new Familia(ayuda, tipo));
+        if (!familia.tipo.equals(tipo)) {
+            throw new IllegalArgumentException("La métrica " + nombre + " ya existe con tipo " + familia.tipo);
+        }
+        return familia;
+    }
+
+    /**
+     * Todas las métricas en el formato de texto de Prometheus (versión 0.0.4), ordenadas por nombre.
+     */
+    public String exportar() {
+        StringBuilder sb = new StringBuilder(8192);
+        new TreeMap<>(familias).forEach((nombre, familia) -> {
+            if (familia.tipo.equals(HISTOGRAMA)) {
+                escribirTemporizadores(sb, nombre, familia);
+            } else {
+                encabezado(sb, nombre, familia.ayuda, familia.tipo);
+                new TreeMap<>(familia.series).forEach((etiquetas, serie) -> {
+                    double valor = serie instanceof LongAdder contador
+                        ? contador.sum()
+                        : ((DoubleSupplier) serie).getAsDouble();
+                    linea(sb, nombre, etiquetas, null, valor);
+                });
+            }
+        });
+        return sb.toString();
+    }
+
+    // Un temporizador se exporta como histograma más un medidor de llamadas en curso y un contador de errores
+    private static void escribirTemporizadores(StringBuilder sb, String nombre, Familia familia) {
+        Map<String, Object> series = new TreeMap<>(familia.series);
+        String base = nombre.endsWith("_seconds") ? nombre.substring(0, nombre.length() - "_seconds".length()) : nombre;
+
+        encabezado(sb, nombre, familia.ayuda, HISTOGRAMA);
+        series.forEach((etiquetas, serie) -> {
+            Timer timer = (Timer) serie;
+            long[] cubetas = timer.cubetas();
+            long acumulado = 0;
+            for (int i = 0; i < cubetas.length; i++) {
+                acumulado += cubetas[i];
+                linea(sb, nombre + "_bucket", etiquetas, "le=\"" + Timer.LIMITES_TEXTO[i] + "\"", acumulado);
+            }
+            linea(sb, nombre + "_sum", etiquetas, null, timer.sumaNanos() / 1e9);
+            linea(sb, nombre + "_count", etiquetas, null, acumulado);
+        });
+
+        encabezado(sb, base + "_in_flight", "Llamadas en curso: " + familia.ayuda, MEDIDOR);
+        series.forEach((etiquetas, serie) -> linea(sb, base + "_in_flight", etiquetas, null, ((Timer) serie).enCurso()));
+
+        encabezado(sb, base + "_errors_total", "Errores por tipo de excepción: " + familia.ayuda, CONTADOR);
+        series.forEach((etiquetas, serie) -> ((Timer) serie).errores().forEach((tipo, contador) ->
+            linea(sb, base + "_errors_total", etiquetas, "exception=\"" + escapar(tipo.getSimpleName()) + "\"", contador.sum())));
+    }
+
+    private static void encabezado(StringBuilder sb, String nombre, String ayuda, String tipo) {
+        sb.append("# HELP ").append(nombre).append(' ')
+            .append(ayuda.replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+        sb.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+
+    private static void linea(StringBuilder sb, String nombre, String etiquetas, String extra, double valor) {
+        sb.append(nombre);
+        if (!etiquetas.isEmpty() || extra != null) {
+            sb.append('{').append(etiquetas);
+            if (extra != null) {
+                if (!etiquetas.isEmpty()) {
+                    sb.append(',');
+                }
+                sb.append(extra);
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (valor == Math.rint(valor) && !Double.isInfinite(valor) && Math.abs(valor) < 1e15) {
+            sb.append((long) valor);
+        } else {
+            sb.append(valor);
+        }
+        sb.append('\n');
+    }
+
+    // Convierte pares clave, valor en el texto de etiquetas de Prometheus: a="1",b="2"
+    private static String etiquetas(String... pares) {
+        if (pares.length % 2 != 0) {
+            throw new IllegalArgumentException("Las etiquetas deben darse como pares clave, valor");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pares.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(pares[i]).append("=\"").append(escapar(pares[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class Familia {
+        private final String ayuda;
+        private final String tipo;
+        private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+        Familia(String ayuda, String tipo) {
+            this.ayuda = ayuda;
+            this.tipo = tipo;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.app.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mide el arranque: tiempo desde que inició la JVM hasta que la aplicación está lista,
+ * tiempo que tomó el contexto de Spring y tiempo hasta la primera solicitud atendida.
+ * Los valores se registran en el log al arrancar y se exportan en /metrics.
+ */
+@Component
+public class StartupReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReporter.class);
+
+    private final AtomicLong listaMs = new AtomicLong(-1);
+    private final AtomicLong contextoMs = new AtomicLong(-1);
+    private final AtomicLong primeraSolicitudMs = new AtomicLong(-1);
+
+    public StartupReporter(MetricsRegistry metrics) {
+        String ayuda = "Duración del arranque por fase";
+        metrics.gauge("app_startup_seconds", ayuda, () -> segundos(listaMs), "phase", "jvm_to_ready");
+        metrics.gauge("app_startup_seconds", ayuda, () -> segundos(contextoMs), "phase", "spring_context");
+        metrics.gauge("app_startup_seconds", ayuda, () -> segundos(primeraSolicitudMs), "phase", "jvm_to_first_request");
+    }
+
+    @EventListener
+    public void aplicacionLista(ApplicationReadyEvent event) {
+        listaMs.set(ManagementFactory.getRuntimeMXBean().getUptime());
+        if (event.getTimeTaken() != null) {
+            contextoMs.set(event.getTimeTaken().toMillis());
+        }
+        log.atInfo()
+            .addKeyValue("jvmToReadyMs", listaMs.get())
+            .addKeyValue("springContextMs", contextoMs.get())
+            .log("Aplicación lista");
+    }
+
+    /**
+     * Registra la primera solicitud atendida; las siguientes solo leen un campo.
+     */
+    public void solicitudAtendida() {
+        if (primeraSolicitudMs.get() < 0) {
+            primeraSolicitudMs.compareAndSet(-1, ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+    }
+
+    private static double segundos(AtomicLong ms) {
+        return ms.get() < 0 ? Double.NaN : ms.get() / 1000.0;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.app.metrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Temporizador de una operación: histograma de latencias, llamadas en curso y errores
+ * agrupados por tipo de excepción.
+ *
+ * Las cubetas del histograma son fijas, así que registrar una latencia solo incrementa
+ * contadores LongAdder ya creados: no reserva memoria ni toma locks. Los totales se
+ * suman recién cuando se exportan.
+ */
+public final class Timer {
+
+    // Límites superiores de las cubetas en nanosegundos; la última cubeta (+Inf) no tiene límite
+    static final long[] LIMITES = {
+        100_000L, 250_000L, 500_000L,
+        1_000_000L, 2_500_000L, 5_000_000L,
+        10_000_000L, 25_000_000L, 50_000_000L,
+        100_000_000L, 250_000_000L, 500_000_000L,
+        1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+
+    // Los mismos límites en segundos, como los espera Prometheus en la etiqueta le
+    static final String[] LIMITES_TEXTO = {
+        "0.0001", "0.00025", "0.0005",
+        "0.001", "0.0025", "0.005",
+        "0.01", "0.025", "0.05",
+        "0.1", "0.25", "0.5",
+        "1", "2.5", "5", "10", "+Inf"
+    };
+
+    private final LongAdder[] cubetas = new LongAdder[LIMITES.length + 1];
+    private final LongAdder sumaNanos = new LongAdder();
+    private final LongAdder enCurso = new LongAdder();
+    private final ConcurrentHashMap<Class<?>, LongAdder> errores = new ConcurrentHashMap<>();
+
+    Timer() {
+        for (int i = 0; i < cubetas.length; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Marca el inicio de una llamada y devuelve la hora para pasarla a `terminar`.
+     */
+    public long iniciar() {
+        enCurso.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marca el fin de una llamada iniciada con `iniciar`.
+     */
+    public void terminar(long inicio) {
+        enCurso.decrement();
+        registrar(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Igual que `terminar(long)`, pero además cuenta el error si no es nulo.
+     */
+    public void terminar(long inicio, Throwable error) {
+        terminar(inicio);
+        if (error != null) {
+            error(error);
+        }
+    }
+
+    /**
+     * Registra una latencia medida por fuera.
+     */
+    public void registrar(long nanos) {
+        cubetas[cubeta(nanos)].increment();
+        sumaNanos.add(nanos);
+    }
+
+    /**
+     * Cuenta un error según la clase de la excepción, sin los envoltorios de CompletableFuture.
+     */
+    public void error(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        Class<?> tipo = error.getClass();
+        LongAdder contador = errores.get(tipo);
+        if (contador == null) {
+            contador = errores.computeIfAbsent(tipo, k -> new LongAdder());
+        }
+        contador.increment();
+    }
+
+    // Búsqueda binaria del primer límite mayor o igual a la latencia
+    private static int cubeta(long nanos) {
+        int bajo = 0;
+        int alto = LIMITES.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (LIMITES[medio] < nanos) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    // Conteos por cubeta (no acumulados), leídos una sola vez para que el total sea coherente
+    long[] cubetas() {
+        long[] conteos = new long[cubetas.length];
+        for (int i = 0; i < cubetas.length; i++) {
+            conteos[i] = cubetas[i].sum();
+        }
+        return conteos;
+    }
+
+    long sumaNanos() {
+        return sumaNanos.sum();
+    }
+
+    public long enCurso() {
+        return enCurso.sum();
+    }
+
+    Map<Class<?>, LongAdder> errores() {
+        return errores;
+    }
+}
@@ -1,22 +1,36 @@
 package com.example.app.model;
 
+import java.util.Locale;
+
 import com.example.app.factory.FormField;
 
 // La clase GenericField implementa la interfaz FormField. Esta clase representa un campo genérico
 public class GenericField implements FormField {
     
     // Atributos de la clase que representan las propiedades del campo del formulario:
+    private final String id;
     private final String type;    
     private final String label;    
     private final boolean required; 
 
     // Constructor que inicializa los atributos de la clase con los valores proporcionados al crear un objeto
-    public GenericField(String type, String label, boolean required) {
+    public GenericField(String id, String type, String label, boolean required) {
+        this.id = id;
         this.type = type;     
         this.label = label; 
         this.required = required; 
     }
 
+    // Constructor sin identificador: se deriva de la etiqueta ("Admin Key" -> "admin_key")
+    public GenericField(String type, String label, boolean required) {
+        this(label.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_"), type, label, required);
+    }
+
+    // Método para obtener el identificador estable del campo.
+    public String getId() {
+        return id;
+    }
+
     // Método para obtener el tipo del campo de formulario.
     public String getType() { 
         return type; 
@@ -21,9 +21,9 @@ public class EnvioRapido extends PedidoDecorador {
     }
 
     /**
-     * Devuelve el costo total del pedido con el envío rápido.
+     * Devuelve el costo total del pedido con el envío rápido (15,00 más), en centavos.
      */
-    public double getCosto() {
-        return pedido.getCosto() + 15.0;
+    public long getCostoCentavos() {
+        return pedido.getCostoCentavos() + 1_500;
     }
 }
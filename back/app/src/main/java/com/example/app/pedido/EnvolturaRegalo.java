@@ -21,9 +21,9 @@ public class EnvolturaRegalo extends PedidoDecorador {
     }
 
     /**
-     * Devuelve el costo total del pedido con la envoltura de regalo.
+     * Devuelve el costo total del pedido con la envoltura de regalo (5,00 más), en centavos.
      */
-    public double getCosto() {
-        return pedido.getCosto() + 5.0;
+    public long getCostoCentavos() {
+        return pedido.getCostoCentavos() + 500;
     }
 }
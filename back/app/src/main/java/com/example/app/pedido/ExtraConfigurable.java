@@ -0,0 +1,35 @@
+package com.example.app.pedido;
+
+/**
+ * Decorador genérico para los extras definidos en el catálogo de configuración.
+ * Agrega al pedido la descripción y el costo indicados, igual que `EnvioRapido`
+ * o `EnvolturaRegalo` lo hacen con sus valores fijos.
+ */
+public class ExtraConfigurable extends PedidoDecorador {
+
+    private final String descripcion;
+    private final long costoCentavos;
+
+    /**
+     * Recibe el pedido a decorar junto con la descripción y el costo del extra en centavos.
+     */
+    public ExtraConfigurable(Pedido pedido, String descripcion, long costoCentavos) {
+        super(pedido);
+        this.descripcion = descripcion;
+        this.costoCentavos = costoCentavos;
+    }
+
+    /**
+     * Devuelve la descripción del pedido incluyendo este extra.
+     */
+    public String getDescripcion() {
+        return pedido.getDescripcion() + ", " + descripcion;
+    }
+
+    /**
+     * Devuelve el costo total del pedido con este extra, en centavos.
+     */
+    public long getCostoCentavos() {
+        return pedido.getCostoCentavos() + costoCentavos;
+    }
+}
@@ -16,7 +16,15 @@ public interface Pedido {
     String getDescripcion();
 
     /**
-     * Devuelve el costo total del pedido.
+     * Devuelve el costo total del pedido en centavos. Los precios se suman como enteros
+     * para que el resultado sea exacto.
      */
-    double getCosto();
+    long getCostoCentavos();
+
+    /**
+     * Devuelve el costo total del pedido en pesos, para mostrarlo.
+     */
+    default double getCosto() {
+        return getCostoCentavos() / 100.0;
+    }
 }
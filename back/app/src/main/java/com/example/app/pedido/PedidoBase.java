@@ -14,9 +14,9 @@ public class PedidoBase implements Pedido {
     }
 
     /**
-     * Devuelve el costo del pedido básico.
+     * Devuelve el costo del pedido básico en centavos (100,00).
      */
-    public double getCosto() {
-        return 100.0;
+    public long getCostoCentavos() {
+        return 10_000;
     }
 }
@@ -0,0 +1,50 @@
+package com.example.app.pedido;
+
+import java.util.List;
+
+/**
+ * Pedido con promociones aplicadas. Decora el pedido ya cotizado: conserva su descripción
+ * y reemplaza el costo por el que resulta de las reglas.
+ */
+public class PedidoPromocional extends PedidoDecorador {
+
+    private final long costoCentavos;
+    private final List<String> promociones;
+
+    /**
+     * Recibe el pedido original, el costo final en centavos y los ids de las reglas aplicadas.
+     */
+    public PedidoPromocional(Pedido pedido, long costoCentavos, List<String> promociones) {
+        super(pedido);
+        this.costoCentavos = costoCentavos;
+        this.promociones = List.copyOf(promociones);
+    }
+
+    /**
+     * Devuelve la descripción del pedido original.
+     */
+    public String getDescripcion() {
+        return pedido.getDescripcion();
+    }
+
+    /**
+     * Devuelve el costo con las promociones, en centavos.
+     */
+    public long getCostoCentavos() {
+        return costoCentavos;
+    }
+
+    /**
+     * Devuelve lo que costaba el pedido sin promociones, en centavos.
+     */
+    public long getCostoOriginalCentavos() {
+        return pedido.getCostoCentavos();
+    }
+
+    /**
+     * Devuelve los ids de las reglas aplicadas, en el orden en que se aplicaron.
+     */
+    public List<String> getPromociones() {
+        return promociones;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.app.pedido;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de reglas de precios compilado e inmutable.
+ *
+ * Cada regla queda indexada por un extra que el pedido debe tener para que aplique
+ * (el del precio especial, o el primero del combo), así que evaluar un pedido solo
+ * revisa las reglas de sus propios extras aunque haya miles vigentes. Las reglas de
+ * porcentaje sin extras son globales y se revisan siempre.
+ *
+ * Orden de aplicación, todo en centavos enteros:
+ *   1. precio especial por extra: si hay varios vigentes para el mismo extra, el más bajo
+ *   2. combos: se suman todos los que se cumplen
+ *   3. porcentaje: solo el mayor de los que se cumplen, sobre el total ya ajustado
+ * El total nunca baja de cero.
+ */
+public final class Promociones {
+
+    public static final Promociones VACIAS = compilar(List.of());
+
+    private enum Tipo { PRECIO, COMBO, PORCENTAJE }
+
+    private final List<ReglaPromocion> definiciones;
+    private final Map<String, Regla[]> porExtra;
+    private final Regla[] globales;
+
+    private Promociones(List<ReglaPromocion> definiciones, Map<String, Regla[]> porExtra, Regla[] globales) {
+        this.definiciones = definiciones;
+        this.porExtra = porExtra;
+        this.globales = globales;
+    }
+
+    /**
+     * Valida las reglas y arma el índice. Lanza IllegalArgumentException con el id de la
+     * primera regla inválida.
+     */
+    public static Promociones compilar(List<ReglaPromocion> reglas) {
+        Map<String, List<Regla>> indice = new HashMap<>();
+        List<Regla> globales = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+
+        for (ReglaPromocion definicion : reglas) {
+            Regla regla = validar(definicion);
+            if (!ids.add(regla.id)) {
+                throw new IllegalArgumentException("Regla repetida: " + regla.id);
+            }
+            if (regla.extras.length == 0) {
+                globales.add(regla);
+            } else {
+                indice.computeIfAbsent(regla.extras[0], k -> new ArrayList<>()).add(regla);
+            }
+        }
+
+        Map<String, Regla[]> porExtra = new HashMap<>();
+        indice.forEach((extra, lista) -> porExtra.put(extra, lista.toArray(new Regla[0])));
+        return new Promociones(List.copyOf(reglas), Map.copyOf(porExtra), globales.toArray(new Regla[0]));
+    }
+
+    /**
+     * Devuelve el pedido con las reglas vigentes en `ahoraMs` aplicadas, o el mismo pedido
+     * si ninguna aplica. `extras` es la lista con la que se cotizó y `tabla` la que lo cotizó.
+     */
+    public Pedido aplicar(Pedido pedido, List<String> extras, TablaPrecios tabla, long ahoraMs) {
+        if (definiciones.isEmpty()) {
+            return pedido;
+        }
+
+        // Cantidad de cada extra conocido, en el orden en que aparece por primera vez
+        Map<String, Integer> cantidades = new LinkedHashMap<>();
+        for (String extra : extras) {
+            if (tabla.conoce(extra)) {
+                cantidades.merge(extra, 1, Integer::sum);
+            }
+        }
+
+        long total = pedido.getCostoCentavos();
+        List<String> aplicadas = new ArrayList<>(0);
+        Regla porcentaje = null;
+
+        for (Map.Entry<String, Integer> extra : cantidades.entrySet()) {
+            Regla[] candidatas = porExtra.get(extra.getKey());
+            if (candidatas == null) {
+                continue;
+            }
+            Regla precio = null;
+            for (Regla regla : candidatas) {
+                if (!regla.vigente(ahoraMs)) {
+                    continue;
+                }
+                switch (regla.tipo) {
+                    case PRECIO:
+                        if (precio == null || regla.centavos < precio.centavos) {
+                            precio = regla;
+                        }
+                        break;
+                    case COMBO:
+                        if (regla.cumple(cantidades)) {
+                            total -= regla.centavos;
+                            aplicadas.add(regla.id);
+                        }
+                        break;
+                    case PORCENTAJE:
+                        if (regla.cumple(cantidades) && (porcentaje == null || regla.porcentaje > porcentaje.porcentaje)) {
+                            porcentaje = regla;
+                        }
+                        break;
+                }
+            }
+            if (precio != null) {
+                total += (precio.centavos - tabla.precioExtraCentavos(extra.getKey())) * extra.getValue();
+                aplicadas.add(precio.id);
+            }
+        }
+
+        for (Regla regla : globales) {
+            if (regla.vigente(ahoraMs) && (porcentaje == null || regla.porcentaje > porcentaje.porcentaje)) {
+                porcentaje = regla;
+            }
+        }
+        if (porcentaje != null) {
+            // Redondeo al centavo más cercano
+            total -= (Math.max(total, 0) * porcentaje.porcentaje + 50) / 100;
+            aplicadas.add(porcentaje.id);
+        }
+
+        if (aplicadas.isEmpty()) {
+            return pedido;
+        }
+        return new PedidoPromocional(pedido, Math.max(total, 0), aplicadas);
+    }
+
+    /**
+     * Devuelve las definiciones con las que se compiló el conjunto.
+     */
+    public List<ReglaPromocion> definiciones() {
+        return definiciones;
+    }
+
+    public int tamano() {
+        return definiciones.size();
+    }
+
+    private static Regla validar(ReglaPromocion definicion) {
+        String id = definicion.getId();
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("Toda regla necesita un id");
+        }
+        String tipoTexto = definicion.getTipo() == null ? "" : definicion.getTipo().toUpperCase(Locale.ROOT);
+        Tipo tipo;
+        try {
+            tipo = Tipo.valueOf(tipoTexto);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo inválido en la regla " + id + ": " + definicion.getTipo());
+        }
+
+        Set<String> extras = new LinkedHashSet<>();
+        for (String extra : definicion.getExtras()) {
+            if (extra == null || extra.isBlank()) {
+                throw new IllegalArgumentException("Extra vacío en la regla " + id);
+            }
+            extras.add(extra);
+        }
+
+        switch (tipo) {
+            case PRECIO:
+                if (extras.size() != 1 || definicion.getCentavos() < 0) {
+                    throw new IllegalArgumentException("La regla " + id + " debe tener un extra y un precio no negativo");
+                }
+                break;
+            case COMBO:
+                if (extras.size() < 2 || definicion.getCentavos() <= 0) {
+                    throw new IllegalArgumentException("La regla " + id + " debe tener al menos dos extras y un descuento positivo");
+                }
+                break;
+            case PORCENTAJE:
+                if (definicion.getPorcentaje() < 1 || definicion.getPorcentaje() > 100) {
+                    throw new IllegalArgumentException("La regla " + id + " debe tener un porcentaje entre 1 y 100");
+                }
+                break;
+        }
+
+        long desde = definicion.getDesde() == null ? Long.MIN_VALUE : definicion.getDesde().toEpochMilli();
+        long hasta = definicion.getHasta() == null ? Long.MAX_VALUE : definicion.getHasta().toEpochMilli();
+        if (desde >= hasta) {
+            throw new IllegalArgumentException("En la regla " + id + ", desde debe ser anterior a hasta");
+        }
+        return new Regla(id, tipo, extras.toArray(new String[0]), definicion.getCentavos(),
+            definicion.getPorcentaje(), desde, hasta);
+    }
+
+    private static final class Regla {
+        private final String id;
+        private final Tipo tipo;
+        private final String[] extras;
+        private final long centavos;
+        private final int porcentaje;
+        private final long desde;
+        private final long hasta;
+
+        Regla(String id, Tipo tipo, String[] extras, long centavos, int porcentaje, long desde, long hasta) {
+            this.id = id;
+            this.tipo = tipo;
+            this.extras = extras;
+            this.centavos = centavos;
+            this.porcentaje = porcentaje;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        boolean vigente(long ahoraMs) {
+            return ahoraMs >= desde && ahoraMs < hasta;
+        }
+
+        // El pedido tiene todos los extras de la regla
+        boolean cumple(Map<String, Integer> cantidades) {
+            for (String extra : extras) {
+                if (!cantidades.containsKey(extra)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.app.pedido;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Definición de una regla de precios, tal como llega en JSON.
+ *
+ * Tipos:
+ *   precio      reemplaza el precio de un extra (`extras` con un solo código) por `centavos`
+ *   combo       descuenta `centavos` una vez si el pedido tiene todos los `extras`
+ *   porcentaje  descuenta `porcentaje` del total; si tiene `extras`, solo cuando están todos
+ *
+ * `desde` y `hasta` limitan la vigencia (hasta no incluido); si faltan, no hay límite.
+ */
+public class ReglaPromocion {
+    private String id;
+    private String tipo;
+    private List<String> extras = List.of();
+    private long centavos;
+    private int porcentaje;
+    private Instant desde;
+    private Instant hasta;
+
+    // Getters y setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public List<String> getExtras() {
+        return extras;
+    }
+
+    public void setExtras(List<String> extras) {
+        this.extras = extras == null ? List.of() : extras;
+    }
+
+    public long getCentavos() {
+        return centavos;
+    }
+
+    public void setCentavos(long centavos) {
+        this.centavos = centavos;
+    }
+
+    public int getPorcentaje() {
+        return porcentaje;
+    }
+
+    public void setPorcentaje(int porcentaje) {
+        this.porcentaje = porcentaje;
+    }
+
+    public Instant getDesde() {
+        return desde;
+    }
+
+    public void setDesde(Instant desde) {
+        this.desde = desde;
+    }
+
+    public Instant getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(Instant hasta) {
+        this.hasta = hasta;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.app.pedido;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Tabla de precios precalculada para los decoradores de `Pedido`.
+ *
+ * En lugar de construir una cadena de decoradores por cada solicitud, cada
+ * secuencia de extras se compila una sola vez en un nodo de un árbol (trie)
+ * que guarda la descripción y el costo ya resueltos. Las siguientes solicitudes
+ * con la misma secuencia solo recorren el árbol, sin crear objetos nuevos.
+ *
+ * Cada nodo se obtiene aplicando el decorador real sobre el nodo padre, por lo
+ * que la descripción y el costo coinciden exactamente con los de la cadena
+ * original, incluyendo extras repetidos y el orden en que se agregan.
+ */
+public final class TablaPrecios {
+
+    // Profundidad máxima que se memoriza; secuencias más largas se resuelven sin guardarse
+    static final int PROFUNDIDAD_MAXIMA = 32;
+
+    // Límite de nodos memorizados para que la tabla no crezca sin control
+    static final int NODOS_MAXIMOS = 1 << 16;
+
+    private final Map<String, Function<Pedido, Pedido>> decoradores;
+    private final Map<String, Long> preciosExtras;
+    private final Nodo raiz;
+    private final AtomicInteger nodos = new AtomicInteger(1);
+
+    /**
+     * Crea una tabla a partir del pedido base y de los decoradores conocidos,
+     * indexados por el código del extra.
+     */
+    public TablaPrecios(Pedido base, Map<String, Function<Pedido, Pedido>> decoradores) {
+        this.decoradores = Map.copyOf(decoradores);
+        this.raiz = new Nodo(base.getDescripcion(), base.getCostoCentavos(), 0);
+
+        // Lo que suma cada extra por sí solo sobre el pedido base
+        Map<String, Long> precios = new HashMap<>();
+        for (Map.Entry<String, Function<Pedido, Pedido>> decorador : this.decoradores.entrySet()) {
+            precios.put(decorador.getKey(), decorador.getValue().apply(base).getCostoCentavos() - base.getCostoCentavos());
+        }
+        this.preciosExtras = Map.copyOf(precios);
+    }
+
+    /**
+     * Tabla con los extras que maneja la aplicación: "envio" y "regalo".
+     */
+    public static TablaPrecios porDefecto() {
+        Map<String, Function<Pedido, Pedido>> decoradores = new LinkedHashMap<>();
+        decoradores.put("envio", EnvioRapido::new);
+        decoradores.put("regalo", EnvolturaRegalo::new);
+        return new TablaPrecios(new PedidoBase(), decoradores);
+    }
+
+    /**
+     * Devuelve el pedido resultante de aplicar los extras en el orden dado.
+     * Los extras desconocidos se ignoran, igual que en la cadena de decoradores.
+     */
+    public Pedido cotizar(List<String> extras) {
+        return cotizar(extras, null);
+    }
+
+    /**
+     * Igual que `cotizar(extras)`, pero agrega a `desconocidos` (si no es nulo)
+     * cada extra que no está en la tabla, para poder informarlo a quien llama.
+     */
+    public Pedido cotizar(List<String> extras, List<String> desconocidos) {
+        Nodo nodo = raiz;
+        for (String extra : extras) {
+            if (extra == null) {
+                continue;
+            }
+            Nodo hijo = nodo.hijos.get(extra);
+            if (hijo == null) {
+                Function<Pedido, Pedido> decorador = decoradores.get(extra);
+                if (decorador == null) {
+                    if (desconocidos != null) {
+                        desconocidos.add(extra);
+                    }
+                    continue;
+                }
+                hijo = crearHijo(nodo, extra, decorador);
+            }
+            nodo = hijo;
+        }
+        return nodo;
+    }
+
+    /**
+     * Indica si el código corresponde a un extra conocido por la tabla.
+     */
+    public boolean conoce(String extra) {
+        return extra != null && decoradores.containsKey(extra);
+    }
+
+    /**
+     * Devuelve lo que suma el extra al pedido, en centavos, o 0 si no lo conoce.
+     */
+    public long precioExtraCentavos(String extra) {
+        Long precio = extra == null ? null : preciosExtras.get(extra);
+        return precio == null ? 0 : precio;
+    }
+
+    /**
+     * Número de extras conocidos por la tabla.
+     */
+    public int tamano() {
+        return decoradores.size();
+    }
+
+    // Aplica el decorador sobre el nodo padre (cuyo valor ya está resuelto) y memoriza el resultado
+    private Nodo crearHijo(Nodo padre, String extra, Function<Pedido, Pedido> decorador) {
+        Pedido decorado = decorador.apply(padre);
+        Nodo nuevo = new Nodo(decorado.getDescripcion(), decorado.getCostoCentavos(), padre.profundidad + 1);
+
+        if (padre.profundidad >= PROFUNDIDAD_MAXIMA || nodos.get() >= NODOS_MAXIMOS) {
+            return nuevo;
+        }
+
+        Nodo previo = padre.hijos.putIfAbsent(extra, nuevo);
+        if (previo != null) {
+            return previo;
+        }
+        nodos.incrementAndGet();
+        return nuevo;
+    }
+
+    /**
+     * Nodo del árbol: un pedido con su descripción y costo ya calculados.
+     */
+    private static final class Nodo implements Pedido {
+
+        private final String descripcion;
+        private final long costoCentavos;
+        private final int profundidad;
+        private final Map<String, Nodo> hijos = new ConcurrentHashMap<>(4);
+
+        Nodo(String descripcion, long costoCentavos, int profundidad) {
+            this.descripcion = descripcion;
+            this.costoCentavos = costoCentavos;
+            this.profundidad = profundidad;
+        }
+
+        public String getDescripcion() {
+            return descripcion;
+        }
+
+        public long getCostoCentavos() {
+            return costoCentavos;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.app.service;
+
+/**
+ * Límite de concurrencia que se ajusta solo (incremento aditivo, reducción multiplicativa).
+ *
+ * Cada llamada exitosa sube el límite en 1/límite, o sea cerca de uno por cada ronda de
+ * llamadas; una señal de sobrecarga (compartimento lleno, tiempo agotado) lo reduce a la
+ * mitad, como mucho una vez por `enfriamientoMs` para que una ráfaga de fallos simultáneos
+ * no lo hunda hasta el mínimo.
+ */
+public class AdaptiveLimiter {
+
+    private final int minimo;
+    private final int maximo;
+    private final long enfriamientoNanos;
+
+    private double limite;
+    private int enCurso;
+    private long ultimaReduccion;
+
+    public AdaptiveLimiter(int inicial, int minimo, int maximo, long enfriamientoMs) {
+        if (minimo < 1 || maximo < minimo) {
+            throw new IllegalArgumentException("Se requiere 1 <= mínimo <= máximo");
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.limite = Math.max(minimo, Math.min(maximo, inicial));
+        this.enfriamientoNanos = enfriamientoMs * 1_000_000;
+        this.ultimaReduccion = System.nanoTime() - enfriamientoNanos;
+    }
+
+    /**
+     * Espera hasta que haya lugar bajo el límite actual y ocupa un lugar.
+     */
+    public synchronized void adquirir() throws InterruptedException {
+        while (enCurso >= (int) limite) {
+            wait();
+        }
+        enCurso++;
+    }
+
+    /**
+     * Libera un lugar ocupado con `adquirir`.
+     */
+    public synchronized void liberar() {
+        enCurso--;
+        notifyAll();
+    }
+
+    /**
+     * Ajusta el límite según el resultado de una llamada.
+     */
+    public synchronized void registrar(boolean sobrecarga) {
+        if (!sobrecarga) {
+            limite = Math.min(maximo, limite + 1.0 / limite);
+            notifyAll();
+            return;
+        }
+        long ahora = System.nanoTime();
+        if (ahora - ultimaReduccion >= enfriamientoNanos) {
+            limite = Math.max(minimo, limite / 2);
+            ultimaReduccion = ahora;
+        }
+    }
+
+    /**
+     * Espera a que terminen todas las llamadas en curso.
+     */
+    public synchronized void esperarTodas() throws InterruptedException {
+        while (enCurso > 0) {
+            wait();
+        }
+    }
+
+    public synchronized int limite() {
+        return (int) limite;
+    }
+
+    public synchronized int enCurso() {
+        return enCurso;
+    }
+}
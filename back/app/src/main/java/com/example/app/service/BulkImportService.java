@@ -0,0 +1,262 @@
+package com.example.app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.util.Errores;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Importa documentos desde una carga NDJSON, una línea por documento.
+ *
+ * La entrada se lee línea por línea: en memoria solo están las líneas cuya escritura sigue
+ * en curso. Cada línea es un objeto con los datos del documento, o {"id": ..., "data": {...}}
+ * (el formato de /firebase/export), así que una exportación se puede volver a importar.
+ * Una línea inválida se informa y no detiene la importación. Las líneas sin ID reciben uno
+ * al leerse, así que los reintentos de una línea escriben siempre el mismo documento.
+ *
+ * Las escrituras van a FirebaseService en paralelo, bajo un límite de concurrencia adaptativo;
+ * las que fallan por sobrecarga o tiempo agotado se reintentan con espera exponencial.
+ * La respuesta es NDJSON: eventos de progreso y al final un resumen con los errores por línea.
+ */
+@Service
+public class BulkImportService {
+
+    private static final TypeReference<Map<String, Object>> TIPO_DOCUMENTO = new TypeReference<>() { };
+
+    // Errores por línea que se detallan en el resumen; del resto solo se informa el total
+    static final int MAX_ERRORES_DETALLADOS = 1000;
+
+    private final FirebaseService firebaseService;
+    private final ObjectMapper objectMapper;
+    private final int concurrenciaInicial;
+    private final int concurrenciaMaxima;
+    private final int maxIntentos;
+    private final long esperaBaseMs;
+    private final int progresoCada;
+
+    private final LongAdder documentosEscritos;
+    private final LongAdder documentosFallidos;
+    private final LongAdder reintentosTotales;
+
+    public BulkImportService(FirebaseService firebaseService,
+                             ObjectMapper objectMapper,
+                             MetricsRegistry metrics,
+                             @Value("${firebase.import.initial-concurrency:8}") int concurrenciaInicial,
+                             @Value("${firebase.import.max-concurrency:64}") int concurrenciaMaxima,
+                             @Value("${firebase.import.max-attempts:5}") int maxIntentos,
+                             @Value("${firebase.import.backoff-ms:50}") long esperaBaseMs,
+                             @Value("${firebase.import.progress-every:1000}") int progresoCada) {
+        this.firebaseService = firebaseService;
+        this.objectMapper = objectMapper;
+        this.concurrenciaInicial = concurrenciaInicial;
+        this.concurrenciaMaxima = concurrenciaMaxima;
+        this.maxIntentos = maxIntentos;
+        this.esperaBaseMs = esperaBaseMs;
+        this.progresoCada = progresoCada;
+
+        String ayuda = "Documentos procesados por la importación masiva";
+        this.documentosEscritos = metrics.counter("import_documents_total", ayuda, "result", "written");
+        this.documentosFallidos = metrics.counter("import_documents_total", ayuda, "result", "failed");
+        this.reintentosTotales = metrics.counter("import_retries_total", "Reintentos de escrituras de la importación masiva");
+    }
+
+    /**
+     * Importa las líneas de `entrada` en `collection` y escribe el progreso y el resumen en `salida`.
+     */
+    public void importar(String collection, InputStream entrada, OutputStream salida) throws IOException, InterruptedException {
+        Importacion importacion = new Importacion(collection);
+        long inicio = System.nanoTime();
+
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8)) {
+            // La salida pertenece a quien llama: no se cierra al terminar
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+
+            String texto;
+            int linea = 0;
+            try {
+                while ((texto = lector.readLine()) != null) {
+                    linea++;
+                    if (texto.isBlank()) {
+                        continue;
+                    }
+                    importacion.lineas.increment();
+                    leerYEscribir(importacion, linea, texto);
+
+                    if (importacion.lineas.sum() % progresoCada == 0) {
+                        progreso(generator, importacion);
+                    }
+                }
+            } finally {
+                // Aunque se corte la lectura, se espera a las escrituras ya iniciadas antes de responder
+                importacion.limitador.esperarTodas();
+            }
+
+            progreso(generator, importacion);
+            resumen(generator, importacion, (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    private void leerYEscribir(Importacion importacion, int linea, String texto) throws InterruptedException {
+        Map<String, Object> documento;
+        try {
+            documento = objectMapper.readValue(texto, TIPO_DOCUMENTO);
+        } catch (JsonProcessingException e) {
+            importacion.fallo(linea, "JSON inválido: " + e.getOriginalMessage());
+            return;
+        }
+
+        String id = null;
+        Map<String, Object> data = documento;
+        // Formato de exportación: {"id": "...", "data": {...}}
+        if (documento.size() == 2 && documento.get("id") instanceof String idExportado
+                && documento.get("data") instanceof Map<?, ?> datos) {
+            id = idExportado;
+            @SuppressWarnings("unchecked")
+            Map<String, Object> datosExportados = (Map<String, Object>) datos;
+            data = datosExportados;
+        }
+        // El ID se fija una vez por línea: si una escritura agotó el tiempo pero se hizo, el reintento
+        // reescribe el mismo documento en lugar de crear otro
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+
+        importacion.limitador.adquirir();
+        escribir(importacion, linea, id, data, 1);
+    }
+
+    // Escribe un documento; el lugar en el limitador se libera cuando termina o se agotan los intentos
+    private void escribir(Importacion importacion, int linea, String id, Map<String, Object> data, int intento) {
+        CompletableFuture<String> escritura;
+        try {
+            escritura = firebaseService.saveDocumentAsync(importacion.collection, id, data);
+        } catch (RuntimeException e) {
+            escritura = CompletableFuture.failedFuture(e);
+        }
+
+        escritura.whenComplete((hora, error) -> {
+            if (error == null) {
+                importacion.limitador.registrar(false);
+                importacion.escritos.incrementAndGet();
+                documentosEscritos.increment();
+                importacion.limitador.liberar();
+                return;
+            }
+
+            Throwable causa = Errores.causa(error);
+            boolean sobrecarga = causa instanceof RejectedExecutionException || causa instanceof TimeoutException;
+            importacion.limitador.registrar(sobrecarga);
+
+            if (intento < maxIntentos && !(causa instanceof IllegalArgumentException)) {
+                reintentosTotales.increment();
+                importacion.reintentos.incrementAndGet();
+                // Espera exponencial con variación aleatoria para que los reintentos no lleguen juntos
+                long espera = esperaBaseMs * (1L << Math.min(intento - 1, 10));
+                espera = ThreadLocalRandom.current().nextLong(espera / 2, espera + 1);
+                CompletableFuture.delayedExecutor(espera, TimeUnit.MILLISECONDS)
+                    .execute(() -> escribir(importacion, linea, id, data, intento + 1));
+                return;
+            }
+
+            importacion.fallo(linea, causa.getClass().getSimpleName() + ": " + causa.getMessage());
+            importacion.limitador.liberar();
+        });
+    }
+
+    private static void progreso(JsonGenerator generator, Importacion importacion) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("event", "progress");
+        generator.writeNumberField("lines", importacion.lineas.sum());
+        generator.writeNumberField("written", importacion.escritos.get());
+        generator.writeNumberField("failed", importacion.fallidos.get());
+        generator.writeNumberField("inFlight", importacion.limitador.enCurso());
+        generator.writeNumberField("concurrency", importacion.limitador.limite());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    private static void resumen(JsonGenerator generator, Importacion importacion, long duracionMs) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("event", "summary");
+        generator.writeStringField("collection", importacion.collection);
+        generator.writeNumberField("lines", importacion.lineas.sum());
+        generator.writeNumberField("written", importacion.escritos.get());
+        generator.writeNumberField("failed", importacion.fallidos.get());
+        generator.writeNumberField("retries", importacion.reintentos.get());
+        generator.writeNumberField("elapsedMs", duracionMs);
+        generator.writeArrayFieldStart("errors");
+        for (ErrorDeLinea error : importacion.errores) {
+            generator.writeStartObject();
+            generator.writeNumberField("line", error.linea);
+            generator.writeStringField("message", error.mensaje);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeBooleanField("errorsTruncated", importacion.fallidos.get() > importacion.errores.size());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    // Estado de una importación en curso
+    private final class Importacion {
+        private final String collection;
+        private final AdaptiveLimiter limitador;
+        private final LongAdder lineas = new LongAdder();
+        private final AtomicInteger escritos = new AtomicInteger();
+        private final AtomicInteger fallidos = new AtomicInteger();
+        private final AtomicInteger reintentos = new AtomicInteger();
+        private final ConcurrentLinkedQueue<ErrorDeLinea> errores = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger erroresGuardados = new AtomicInteger();
+
+        Importacion(String collection) {
+            this.collection = collection;
+            this.limitador = new AdaptiveLimiter(concurrenciaInicial, 1, concurrenciaMaxima, 100);
+        }
+
+        void fallo(int linea, String mensaje) {
+            fallidos.incrementAndGet();
+            documentosFallidos.increment();
+            if (erroresGuardados.incrementAndGet() <= MAX_ERRORES_DETALLADOS) {
+                errores.add(new ErrorDeLinea(linea, mensaje));
+            }
+        }
+    }
+
+    private static final class ErrorDeLinea {
+        private final int linea;
+        private final String mensaje;
+
+        ErrorDeLinea(int linea, String mensaje) {
+            this.linea = linea;
+            this.mensaje = mensaje;
+        }
+    }
+}
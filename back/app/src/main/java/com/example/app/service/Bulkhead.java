@@ -0,0 +1,139 @@
+package com.example.app.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Compartimento (bulkhead) para las llamadas asíncronas a una colección.
+ *
+ * Limita cuántas llamadas pueden estar en curso a la vez y ejecuta la continuación de
+ * cada una en un grupo de hilos propio y acotado, de modo que una colección lenta no
+ * agota los recursos de las demás. Si el límite está lleno, la llamada se rechaza de
+ * inmediato con RejectedExecutionException en lugar de esperar.
+ */
+public class Bulkhead {
+
+    private final String nombre;
+    private final int maxConcurrentes;
+    private final Semaphore permisos;
+    private final ThreadPoolExecutor executor;
+
+    // Contadores para observar el comportamiento del compartimento
+    private final LongAdder iniciadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder nanosAcumulados = new LongAdder();
+
+    public Bulkhead(String nombre, int maxConcurrentes, int hilos) {
+        this.nombre = nombre;
+        this.maxConcurrentes = maxConcurrentes;
+        this.permisos = new Semaphore(maxConcurrentes);
+
+        AtomicInteger contador = new AtomicInteger();
+        // La cola nunca recibe más tareas que permisos hay, así que no se desborda
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(maxConcurrentes), r -> {
+                Thread hilo = new Thread(r, "bulkhead-" + nombre + "-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Ejecutor de este compartimento, para continuar el trabajo de sus llamadas.
+     */
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Inicia la llamada si hay lugar. El futuro devuelto se completa en los hilos del
+     * compartimento; el permiso se libera cuando termina la llamada original.
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> llamada) {
+        if (!permisos.tryAcquire()) {
+            rechazadas.increment();
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException("Demasiadas llamadas en curso para " + nombre));
+        }
+        iniciadas.increment();
+        long inicio = System.nanoTime();
+
+        CompletableFuture<T> futuro;
+        try {
+            futuro = llamada.get();
+        } catch (RuntimeException e) {
+            permisos.release();
+            fallidas.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return futuro.whenCompleteAsync((resultado, error) -> {
+            permisos.release();
+            nanosAcumulados.add(System.nanoTime() - inicio);
+            if (error != null) {
+                fallidas.increment();
+            } else {
+                completadas.increment();
+            }
+        }, executor);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Llamadas en curso en este momento.
+     */
+    public int enCurso() {
+        return maxConcurrentes - permisos.availablePermits();
+    }
+
+    /**
+     * Llamadas esperando un hilo del compartimento.
+     */
+    public int encoladas() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Llamadas rechazadas desde que se creó el compartimento.
+     */
+    public long rechazadas() {
+        return rechazadas.sum();
+    }
+
+    /**
+     * Estado actual de los contadores.
+     */
+    public Map<String, Object> estadisticas() {
+        long terminadas = completadas.sum() + fallidas.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrentes", maxConcurrentes);
+        stats.put("enCurso", enCurso());
+        stats.put("encoladas", encoladas());
+        stats.put("iniciadas", iniciadas.sum());
+        stats.put("completadas", completadas.sum());
+        stats.put("fallidas", fallidas.sum());
+        stats.put("rechazadas", rechazadas.sum());
+        stats.put("latenciaPromedioMs", terminadas == 0 ? 0.0 : nanosAcumulados.sum() / 1e6 / terminadas);
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.app.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.store.DocumentPage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reparte los cambios de documentos a los clientes suscritos por server-sent events, para que
+ * no tengan que consultar el documento periódicamente.
+ *
+ * Por cada documento (o colección) con suscriptores hay un solo oyente en el almacén, sin
+ * importar cuántos clientes lo sigan: cada cambio se serializa una vez y se encola a todos.
+ * Quien avisa nunca espera a los clientes: cada suscriptor tiene una cola acotada que un
+ * grupo pequeño de hilos vacía hacia su conexión. Si un cliente lento llena su cola se lo
+ * desconecta (EventSource vuelve a conectarse y recibe el estado actual), sin demorar al resto.
+ *
+ * Eventos: "snapshot" con el estado del documento al suscribirse y "change" con cada cambio,
+ * ambos {"collection", "id", "data"} (data nulo si el documento no existe o se borró). El
+ * snapshot siempre sale primero: los cambios que llegan mientras se lee se retienen y se
+ * envían después, en orden, así que el cliente termina con el estado más reciente.
+ * Si el almacén deja de escuchar por un error, se cierran las conexiones de ese tema.
+ */
+@Service
+public class ChangeBroadcaster {
+
+    private final FirebaseService firebaseService;
+    private final ObjectMapper objectMapper;
+    private final int capacidadCola;
+    private final int maxSuscriptores;
+    private final long timeoutMs;
+
+    // Suscriptores por "colección" o "colección/id", con el oyente del almacén que los alimenta
+    private final Map<String, Tema> temas = new ConcurrentHashMap<>();
+    private final AtomicInteger suscriptores = new AtomicInteger();
+
+    private final ExecutorService envios;
+    private final ScheduledExecutorService latidos;
+
+    private final LongAdder cambios;
+    private final LongAdder desconectadosLentos;
+
+    public ChangeBroadcaster(FirebaseService firebaseService,
+                             ObjectMapper objectMapper,
+                             MetricsRegistry metrics,
+                             @Value("${firebase.stream.buffer-size:64}") int capacidadCola,
+                             @Value("${firebase.stream.max-subscribers:10000}") int maxSuscriptores,
+                             @Value("${firebase.stream.send-threads:4}") int hilosEnvio,
+                             @Value("${firebase.stream.heartbeat-seconds:15}") long segundosLatido,
+                             @Value("${firebase.stream.timeout-minutes:30}") long minutosTimeout) {
+        this.firebaseService = firebaseService;
+        this.objectMapper = objectMapper;
+        this.capacidadCola = capacidadCola;
+        this.maxSuscriptores = maxSuscriptores;
+        this.timeoutMs = TimeUnit.MINUTES.toMillis(minutosTimeout);
+
+        AtomicInteger numero = new AtomicInteger();
+        this.envios = Executors.newFixedThreadPool(hilosEnvio, r -> {
+            Thread hilo = new Thread(r, "stream-envio-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Un comentario periódico mantiene viva la conexión y detecta los clientes que ya no están
+        this.latidos = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "stream-latidos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        latidos.scheduleAtFixedRate(this::latir, segundosLatido, segundosLatido, TimeUnit.SECONDS);
+
+        this.cambios = metrics.counter("stream_changes_total", "Cambios de documentos repartidos a los suscriptores");
+        this.desconectadosLentos = metrics.counter("stream_slow_disconnects_total",
+            "Suscriptores desconectados por tener la cola llena");
+        metrics.gauge("stream_subscribers", "Clientes suscritos a cambios de documentos", suscriptores::get);
+        metrics.gauge("stream_listeners", "Oyentes activos en el almacén de documentos", temas::size);
+    }
+
+    /**
+     * Suscribe un cliente a los cambios de un documento (o de toda la colección si `id` es nulo).
+     * Lanza RejectedExecutionException si ya se alcanzó el máximo de suscriptores.
+     */
+    public SseEmitter suscribir(String collection, String id) {
+        if (suscriptores.incrementAndGet() > maxSuscriptores) {
+            suscriptores.decrementAndGet();
+            throw new RejectedExecutionException("Se alcanzó el máximo de suscriptores");
+        }
+
+        String clave = id != null ? collection + "/" + id : collection;
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(clave, emitter, id != null);
+        emitter.onCompletion(suscriptor::quitar);
+        emitter.onTimeout(suscriptor::quitar);
+        emitter.onError(error -> suscriptor.quitar());
+
+        try {
+            // Crear el tema y agregar el suscriptor es atómico respecto de quitar el último
+            temas.compute(clave, (k, tema) -> {
+                Tema actual = tema != null ? tema : abrir(k, collection, id);
+                actual.suscriptores.add(suscriptor);
+                return actual;
+            });
+        } catch (RuntimeException e) {
+            suscriptores.decrementAndGet();
+            throw e;
+        }
+
+        if (id != null) {
+            // El oyente ya está registrado: ningún cambio posterior a esta lectura se pierde
+            firebaseService.getDocumentAsync(collection, id).whenComplete((documento, error) ->
+                suscriptor.encolarEstado(error == null ? serializar(collection, id, documento) : null));
+        }
+        return emitter;
+    }
+
+    public int getSuscriptores() {
+        return suscriptores.get();
+    }
+
+    private Tema abrir(String clave, String collection, String id) {
+        List<Suscriptor> suscriptoresDelTema = new CopyOnWriteArrayList<>();
+        Runnable cancelar = firebaseService.listen(collection, id,
+            cambio -> publicar(collection, cambio, suscriptoresDelTema),
+            error -> cerrar(clave, suscriptoresDelTema));
+        return new Tema(suscriptoresDelTema, cancelar);
+    }
+
+    // El almacén dejó de escuchar por un error: se cierran las conexiones del tema para que
+    // EventSource vuelva a conectarse, y al suscribirse de nuevo se abre un oyente nuevo
+    private void cerrar(String clave, List<Suscriptor> suscriptoresDelTema) {
+        temas.computeIfPresent(clave, (k, tema) -> {
+            if (tema.suscriptores != suscriptoresDelTema) {
+                return tema;
+            }
+            tema.cancelar.run();
+            return null;
+        });
+        for (Suscriptor suscriptor : suscriptoresDelTema) {
+            suscriptor.desconectar();
+        }
+    }
+
+    // Se llama desde el oyente del almacén: serializa una vez y solo encola, nunca espera
+    private void publicar(String collection, DocumentPage.Entry cambio, List<Suscriptor> destinatarios) {
+        if (destinatarios.isEmpty()) {
+            return;
+        }
+        cambios.increment();
+        String evento = serializar(collection, cambio.getId(), cambio.getData());
+        for (Suscriptor suscriptor : destinatarios) {
+            suscriptor.encolarCambio(evento);
+        }
+    }
+
+    private String serializar(String collection, String id, Map<String, Object> data) {
+        Map<String, Object> evento = new HashMap<>();
+        evento.put("collection", collection);
+        evento.put("id", id);
+        evento.put("data", data);
+        try {
+            return objectMapper.writeValueAsString(evento);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el cambio de " + collection + "/" + id, e);
+        }
+    }
+
+    private void latir() {
+        for (Tema tema : temas.values()) {
+            for (Suscriptor suscriptor : tema.suscriptores) {
+                suscriptor.encolar(SseEmitter.event().comment("ping"));
+            }
+        }
+    }
+
+    // Al apagar se cierran los oyentes del almacén y las conexiones abiertas
+    @PreDestroy
+    public void close() {
+        latidos.shutdownNow();
+        for (Tema tema : temas.values()) {
+            tema.cancelar.run();
+            tema.suscriptores.forEach(suscriptor -> suscriptor.emitter.complete());
+        }
+        temas.clear();
+        envios.shutdown();
+    }
+
+    private static final class Tema {
+        private final List<Suscriptor> suscriptores;
+        private final Runnable cancelar;
+
+        Tema(List<Suscriptor> suscriptores, Runnable cancelar) {
+            this.suscriptores = suscriptores;
+            this.cancelar = cancelar;
+        }
+    }
+
+    // Una conexión: su cola acotada y, como mucho, una tarea vaciándola a la vez
+    private final class Suscriptor {
+        private final String clave;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> pendientes;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final AtomicBoolean quitado = new AtomicBoolean();
+        // Cambios que llegaron antes de encolar el snapshot; null cuando ya no se espera
+        private List<String> retenidos;
+
+        Suscriptor(String clave, SseEmitter emitter, boolean esperaEstado) {
+            this.clave = clave;
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(capacidadCola);
+            this.retenidos = esperaEstado ? new ArrayList<>() : null;
+        }
+
+        // Encola el snapshot (si se pudo leer) y detrás los cambios retenidos mientras tanto
+        synchronized void encolarEstado(String datos) {
+            if (datos != null) {
+                encolar("snapshot", datos);
+            }
+            for (String cambio : retenidos) {
+                encolar("change", cambio);
+            }
+            retenidos = null;
+        }
+
+        void encolarCambio(String datos) {
+            synchronized (this) {
+                if (retenidos != null) {
+                    if (retenidos.size() < capacidadCola) {
+                        retenidos.add(datos);
+                    } else {
+                        desconectarLento();
+                    }
+                    return;
+                }
+            }
+            encolar("change", datos);
+        }
+
+        void encolar(String nombre, String datos) {
+            encolar(SseEmitter.event().name(nombre).data(datos, MediaType.APPLICATION_JSON));
+        }
+
+        void encolar(SseEmitter.SseEventBuilder evento) {
+            if (quitado.get()) {
+                return;
+            }
+            if (!pendientes.offer(evento)) {
+                desconectarLento();
+                return;
+            }
+            if (enviando.compareAndSet(false, true)) {
+                try {
+                    envios.execute(this::vaciar);
+                } catch (RejectedExecutionException e) {
+                    // Se está apagando la aplicación
+                    enviando.set(false);
+                }
+            }
+        }
+
+        private void desconectarLento() {
+            desconectadosLentos.increment();
+            desconectar();
+        }
+
+        // Quita al suscriptor y cierra su conexión sin esperar al cliente: complete() espera a que
+        // termine el envío en curso, así que si hay uno la cierra el hilo que envía al terminarlo
+        void desconectar() {
+            quitar();
+            if (enviando.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        private void vaciar() {
+            try {
+                do {
+                    SseEmitter.SseEventBuilder evento;
+                    while ((evento = pendientes.poll()) != null) {
+                        emitter.send(evento);
+                    }
+                    if (quitado.get()) {
+                        emitter.complete();
+                        return;
+                    }
+                    enviando.set(false);
+                    // Un evento encolado (o una desconexión) justo después de vaciar la cola todavía se atiende
+                } while ((!pendientes.isEmpty() || quitado.get()) && enviando.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se desconectó o la conexión ya se cerró
+                quitar();
+                emitter.completeWithError(e);
+            }
+        }
+
+        void quitar() {
+            if (!quitado.compareAndSet(false, true)) {
+                return;
+            }
+            pendientes.clear();
+            suscriptores.decrementAndGet();
+            temas.computeIfPresent(clave, (k, tema) -> {
+                tema.suscriptores.remove(this);
+                if (tema.suscriptores.isEmpty()) {
+                    tema.cancelar.run();
+                    return null;
+                }
+                return tema;
+            });
+        }
+    }
+}
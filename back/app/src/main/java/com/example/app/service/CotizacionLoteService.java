@@ -0,0 +1,175 @@
+package com.example.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Service;
+
+import com.example.app.pedido.Pedido;
+import com.example.app.pedido.PedidoPromocional;
+import com.example.app.pedido.Promociones;
+import com.example.app.pedido.TablaPrecios;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cotiza muchas listas de extras en una sola solicitud.
+ *
+ * La entrada se lee token por token y se procesa en bloques de tamaño fijo,
+ * de modo que la memoria usada no depende del número de cotizaciones.
+ * Cada resultado se escribe como una línea NDJSON en el mismo orden de entrada.
+ */
+@Service
+public class CotizacionLoteService {
+
+    // Cotizaciones que se leen antes de calcularlas y escribirlas
+    static final int TAMANO_BLOQUE = 1024;
+
+    // A partir de cuántos extras en un bloque conviene repartir el cálculo entre núcleos
+    static final int UMBRAL_PARALELO = 4_096;
+
+    private final RegistroExtras registroExtras;
+    private final RegistroPromociones registroPromociones;
+    private final JsonFactory jsonFactory;
+
+    public CotizacionLoteService(RegistroExtras registroExtras, RegistroPromociones registroPromociones,
+                                 ObjectMapper objectMapper) {
+        this.registroExtras = registroExtras;
+        this.registroPromociones = registroPromociones;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Lee las listas de extras desde `entrada` y escribe una línea por cotización en `salida`.
+     *
+     * Si `ndjson` es verdadero, la entrada es una secuencia de arreglos (uno por línea);
+     * si no, es un único arreglo JSON de arreglos. Devuelve el número de cotizaciones escritas.
+     *
+     * Si la entrada es inválida lanza JsonProcessingException. Cuando ya se había escrito algún
+     * bloque, antes se escriben también las cotizaciones válidas que precedían al error.
+     */
+    public long cotizar(InputStream entrada, OutputStream salida, boolean ndjson) throws IOException {
+        long total = 0;
+
+        try (JsonParser parser = jsonFactory.createParser(entrada);
+             JsonGenerator generator = jsonFactory.createGenerator(salida, JsonEncoding.UTF8)) {
+
+            // La salida pertenece a quien llama: no se cierra al terminar
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Sin separador entre valores raíz: cada línea termina con su propio salto
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+
+            if (!ndjson && parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Se esperaba un arreglo de listas de extras");
+            }
+
+            List<List<String>> bloque = new ArrayList<>(TAMANO_BLOQUE);
+            Pedido[] resultados = new Pedido[TAMANO_BLOQUE];
+            List<List<String>> desconocidos = new ArrayList<>(TAMANO_BLOQUE);
+            int extrasEnBloque = 0;
+
+            JsonToken token;
+            try {
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                    if (token != JsonToken.START_ARRAY) {
+                        throw new JsonParseException(parser, "Cada cotización debe ser una lista de extras");
+                    }
+                    List<String> extras = leerExtras(parser);
+                    bloque.add(extras);
+                    extrasEnBloque += extras.size();
+
+                    if (bloque.size() == TAMANO_BLOQUE) {
+                        total += escribirBloque(bloque, resultados, desconocidos, extrasEnBloque, generator);
+                        extrasEnBloque = 0;
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // Si ya se enviaron resultados, quien llama informa el error como una línea más:
+                // antes se escriben las cotizaciones válidas leídas hasta el error
+                if (total > 0) {
+                    escribirBloque(bloque, resultados, desconocidos, extrasEnBloque, generator);
+                }
+                throw e;
+            }
+            total += escribirBloque(bloque, resultados, desconocidos, extrasEnBloque, generator);
+        }
+        return total;
+    }
+
+    private static List<String> leerExtras(JsonParser parser) throws IOException {
+        List<String> extras = new ArrayList<>(4);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_STRING) {
+                throw new JsonParseException(parser, "Los extras deben ser cadenas de texto");
+            }
+            extras.add(parser.getText());
+        }
+        return extras;
+    }
+
+    // Calcula el bloque (en paralelo si es grande) y lo escribe en orden
+    private int escribirBloque(List<List<String>> bloque, Pedido[] resultados, List<List<String>> desconocidos,
+                               int extrasEnBloque, JsonGenerator generator) throws IOException {
+        int n = bloque.size();
+        if (n == 0) {
+            return 0;
+        }
+
+        // Todo el bloque se cotiza con la misma versión del catálogo y de las promociones, a la misma hora
+        TablaPrecios tabla = registroExtras.tabla();
+        Promociones promociones = registroPromociones.promociones();
+        long ahora = System.currentTimeMillis();
+        for (int i = 0; i < n; i++) {
+            desconocidos.add(new ArrayList<>(0));
+        }
+
+        IntStream indices = IntStream.range(0, n);
+        if (extrasEnBloque >= UMBRAL_PARALELO) {
+            indices = indices.parallel();
+        }
+        indices.forEach(i -> resultados[i] = promociones.aplicar(
+            tabla.cotizar(bloque.get(i), desconocidos.get(i)), bloque.get(i), tabla, ahora));
+
+        for (int i = 0; i < n; i++) {
+            generator.writeStartObject();
+            generator.writeStringField("descripcion", resultados[i].getDescripcion());
+            generator.writeNumberField("costo", resultados[i].getCosto());
+            generator.writeNumberField("costoCentavos", resultados[i].getCostoCentavos());
+            if (resultados[i] instanceof PedidoPromocional promocional) {
+                generator.writeNumberField("costoOriginalCentavos", promocional.getCostoOriginalCentavos());
+                generator.writeArrayFieldStart("promociones");
+                for (String id : promocional.getPromociones()) {
+                    generator.writeString(id);
+                }
+                generator.writeEndArray();
+            }
+            if (!desconocidos.get(i).isEmpty()) {
+                generator.writeArrayFieldStart("desconocidos");
+                for (String extra : desconocidos.get(i)) {
+                    generator.writeString(extra);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            resultados[i] = null;
+        }
+        generator.flush();
+
+        bloque.clear();
+        desconocidos.clear();
+        return n;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.app.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Caché de lectura (read-through) para documentos, con tamaño máximo y tiempo de vida.
+ *
+ * Usa Caffeine, cuya política de desalojo es W-TinyLFU. Si varias solicitudes piden a la
+ * vez un documento que no está en caché, todas comparten la misma lectura al almacén.
+ * Los documentos inexistentes y las lecturas fallidas no se guardan.
+ */
+public class DocumentCache {
+
+    private final AsyncCache<String, Map<String, Object>> cache;
+
+    public DocumentCache(long tamanoMaximo, Duration tiempoDeVida) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(tamanoMaximo)
+            .expireAfterWrite(tiempoDeVida)
+            .recordStats()
+            .buildAsync();
+    }
+
+    /**
+     * Devuelve el documento desde la caché o lo carga con `cargar` si no está.
+     * El mapa devuelto es de solo lectura porque se comparte entre solicitudes.
+     */
+    public CompletableFuture<Map<String, Object>> get(String collection, String id,
+                                                      Supplier<CompletableFuture<Map<String, Object>>> cargar) {
+        return cache.get(clave(collection, id), (clave, executor) ->
+            cargar.get().thenApply(documento -> documento != null ? Collections.unmodifiableMap(documento) : null));
+    }
+
+    /**
+     * Devuelve los documentos que están en la caché y carga todos los que faltan con una sola
+     * llamada a `cargar`, que recibe solo esos IDs. Los que otra solicitud ya está cargando se
+     * comparten. El mapa tiene una entrada por documento que existe.
+     */
+    public CompletableFuture<Map<String, Map<String, Object>>> getAll(
+            String collection, Collection<String> ids,
+            Function<Set<String>, CompletableFuture<Map<String, Map<String, Object>>>> cargar) {
+        int prefijo = collection.length() + 1;
+        List<String> claves = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            claves.add(clave(collection, id));
+        }
+        return cache.getAll(claves, (faltantes, executor) -> {
+            Set<String> idsFaltantes = new LinkedHashSet<>();
+            for (String clave : faltantes) {
+                idsFaltantes.add(clave.substring(prefijo));
+            }
+            return cargar.apply(idsFaltantes).thenApply(documentos -> {
+                Map<String, Map<String, Object>> cargados = new HashMap<>();
+                documentos.forEach((id, documento) ->
+                    cargados.put(clave(collection, id), Collections.unmodifiableMap(documento)));
+                return cargados;
+            });
+        }).thenApply(encontrados -> {
+            Map<String, Map<String, Object>> documentos = new LinkedHashMap<>();
+            encontrados.forEach((clave, documento) -> documentos.put(clave.substring(prefijo), documento));
+            return documentos;
+        });
+    }
+
+    /**
+     * Quita un documento de la caché, por ejemplo después de escribirlo.
+     */
+    public void invalidate(String collection, String id) {
+        cache.synchronous().invalidate(clave(collection, id));
+    }
+
+    /**
+     * Cantidad aproximada de documentos en la caché.
+     */
+    public long tamano() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Contadores acumulados de Caffeine.
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Contadores de aciertos, fallos y desalojos.
+     */
+    public Map<String, Object> estadisticas() {
+        CacheStats stats = stats();
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("tamano", tamano());
+        resultado.put("aciertos", stats.hitCount());
+        resultado.put("fallos", stats.missCount());
+        resultado.put("desalojos", stats.evictionCount());
+        resultado.put("tasaAciertos", stats.hitRate());
+        return resultado;
+    }
+
+    private static String clave(String collection, String id) {
+        return collection + '/' + id;
+    }
+}
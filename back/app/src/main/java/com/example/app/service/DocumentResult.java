@@ -0,0 +1,50 @@
+package com.example.app.service;
+
+import java.util.Map;
+
+/**
+ * Resultado de un ID en una lectura de varios documentos: el documento, que no existe,
+ * o el error de su lectura (los demás IDs no se ven afectados).
+ */
+public final class DocumentResult {
+
+    public static final String ENCONTRADO = "found";
+    public static final String INEXISTENTE = "not_found";
+    public static final String ERROR = "error";
+
+    private static final DocumentResult NO_EXISTE = new DocumentResult(INEXISTENTE, null, null);
+
+    private final String status;
+    private final Map<String, Object> data;
+    private final String error;
+
+    private DocumentResult(String status, Map<String, Object> data, String error) {
+        this.status = status;
+        this.data = data;
+        this.error = error;
+    }
+
+    static DocumentResult encontrado(Map<String, Object> data) {
+        return new DocumentResult(ENCONTRADO, data, null);
+    }
+
+    static DocumentResult inexistente() {
+        return NO_EXISTE;
+    }
+
+    static DocumentResult fallido(String error) {
+        return new DocumentResult(ERROR, null, error);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -1,48 +1,382 @@
 package com.example.app.service;
 
-import com.google.api.core.ApiFuture;
-import com.google.cloud.firestore.DocumentReference;
-import com.google.cloud.firestore.DocumentSnapshot;
-import com.google.cloud.firestore.Firestore;
-import com.google.cloud.firestore.WriteResult;
-import com.google.firebase.cloud.FirestoreClient;
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.metrics.Timer;
+import com.example.app.store.DocumentPage;
+import com.example.app.store.DocumentQuery;
+import com.example.app.store.DocumentStore;
+import com.example.app.store.InstrumentedDocumentStore;
+import com.example.app.store.ResilientDocumentStore;
+import com.example.app.tracing.RequestTrace;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+// Servicio de documentos de la aplicación. Los datos viven en un DocumentStore
+// (Firestore, memoria o registro local, según app.store.type).
 @Service
 public class FirebaseService {
 
-    private Firestore getFirestore() {
-        return FirestoreClient.getFirestore();
+    // IDs por llamada al almacén en getDocuments; los lotes se piden a la vez
+    static final int IDS_POR_LECTURA = 100;
+
+    private final DocumentStore store;
+
+    // Escritor diferido; es nulo cuando el modo write-behind está desactivado
+    private final WriteBehindWriter writeBehind;
+
+    // Un compartimento (bulkhead) por colección para las llamadas asíncronas
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final int bulkheadMaxConcurrent;
+    private final int bulkheadThreads;
+    private final long timeoutMs;
+
+    // Caché de lectura para getDocument; es nula si está desactivada
+    private final DocumentCache cache;
+
+    private final MetricsRegistry metrics;
+    private final Timer saveTimer;
+    private final Timer getTimer;
+    private final Timer getManyTimer;
+
+    public FirebaseService(DocumentStore store,
+                           MetricsRegistry metrics,
+                           @Value("${firebase.write-behind.enabled:false}") boolean writeBehindEnabled,
+                           @Value("${firebase.write-behind.capacity:10000}") int capacity,
+                           @Value("${firebase.write-behind.batch-size:500}") int batchSize,
+                           @Value("${firebase.write-behind.window-ms:50}") long windowMs,
+                           @Value("${firebase.write-behind.offer-timeout-ms:100}") long offerTimeoutMs,
+                           @Value("${firebase.bulkhead.max-concurrent:64}") int bulkheadMaxConcurrent,
+                           @Value("${firebase.bulkhead.threads:4}") int bulkheadThreads,
+                           @Value("${firebase.async.timeout-ms:5000}") long timeoutMs,
+                           @Value("${firebase.cache.enabled:true}") boolean cacheEnabled,
+                           @Value("${firebase.cache.max-size:10000}") long cacheMaxSize,
+                           @Value("${firebase.cache.ttl-seconds:300}") long cacheTtlSeconds,
+                           ResilientDocumentStore.Opciones resiliencia) {
+        // Cada operación del almacén queda medida en /metrics; cada intento de lectura se mide por separado
+        DocumentStore medido = new InstrumentedDocumentStore(store, metrics);
+        // Las lecturas tienen presupuesto de latencia, hedge y cortocircuito con el último valor válido
+        this.store = resiliencia.isHabilitado() ? new ResilientDocumentStore(medido, resiliencia, metrics) : medido;
+        // Cada lote del escritor diferido se guarda con una sola escritura por lotes del almacén
+        this.writeBehind = writeBehindEnabled
+            ? new WriteBehindWriter(lote -> this.store.saveAll(lote).get(), capacity, batchSize,
+                Duration.ofMillis(windowMs), Duration.ofMillis(offerTimeoutMs))
+            : null;
+        this.bulkheadMaxConcurrent = bulkheadMaxConcurrent;
+        this.bulkheadThreads = bulkheadThreads;
+        this.timeoutMs = timeoutMs;
+        this.cache = cacheEnabled ? new DocumentCache(cacheMaxSize, Duration.ofSeconds(cacheTtlSeconds)) : null;
+
+        this.metrics = metrics;
+        String ayuda = "Latencia de las operaciones de FirebaseService, incluidas caché y escritura diferida";
+        this.saveTimer = metrics.timer("firebase_service_seconds", ayuda, "operation", "save");
+        this.getTimer = metrics.timer("firebase_service_seconds", ayuda, "operation", "get");
+        this.getManyTimer = metrics.timer("firebase_service_seconds", ayuda, "operation", "get_many");
+        registrarMedidores();
+    }
+
+    // Los valores que ya llevan la caché y el escritor diferido se leen solo al exportar /metrics
+    private void registrarMedidores() {
+        if (cache != null) {
+            metrics.gauge("firebase_cache_size", "Documentos en la caché de lectura", cache::tamano);
+            metrics.counter("firebase_cache_hits_total", "Aciertos de la caché de lectura", () -> cache.stats().hitCount());
+            metrics.counter("firebase_cache_misses_total", "Fallos de la caché de lectura", () -> cache.stats().missCount());
+            metrics.counter("firebase_cache_evictions_total", "Desalojos de la caché de lectura", () -> cache.stats().evictionCount());
+        }
+        if (writeBehind != null) {
+            metrics.gauge("firebase_write_behind_pending", "Escrituras diferidas en cola", writeBehind::pendientes);
+        }
     }
 
     // Guardar un documento en una colección
-    public String saveDocument(String collection, String id, Object data) throws ExecutionException, InterruptedException {
-        ApiFuture<WriteResult> future;
-        
-        if (id != null) {
-            // Si hay un ID específico, usarlo
-            future = getFirestore().collection(collection).document(id).set(data);
-        } else {
-            // Si no hay ID, dejar que Firestore genere uno
-            future = getFirestore().collection(collection).document().set(data);
+    public String saveDocument(String collection, String id, Map<String, Object> data) throws ExecutionException, InterruptedException {
+        // En modo write-behind espera a que el lote de la escritura quede guardado
+        return saveDocumentAsync(collection, id, data).get();
+    }
+
+    // Versión asíncrona de saveDocument: no bloquea el hilo que llama.
+    // En modo write-behind el futuro se completa cuando el lote de la escritura queda guardado.
+    public CompletableFuture<String> saveDocumentAsync(String collection, String id, Map<String, Object> data) {
+        return medir(saveTimer, "firebase_service.save", () -> guardar(collection, id, data));
+    }
+
+    private CompletableFuture<String> guardar(String collection, String id, Map<String, Object> data) {
+        if (writeBehind != null) {
+            try {
+                return saveDocumentDeferred(collection, id, data)
+                    .whenComplete((hora, error) -> invalidate(collection, id))
+                    .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        invalidate(collection, id);
+        return bulkhead(collection).execute(() -> store.save(collection, id, data))
+            // Se invalida al terminar para descartar lecturas que hayan cargado la versión anterior mientras tanto
+            .whenComplete((hora, error) -> invalidate(collection, id))
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Encolar un documento en el escritor diferido; el futuro se completa cuando su lote queda guardado.
+    // Si la cola está llena espera un momento y luego lanza RejectedExecutionException.
+    public CompletableFuture<String> saveDocumentDeferred(String collection, String id, Map<String, Object> data) throws InterruptedException {
+        if (writeBehind == null) {
+            throw new IllegalStateException("El modo write-behind no está habilitado");
         }
-        
-        return future.get().getUpdateTime().toString();
+        invalidate(collection, id);
+        return writeBehind.enqueue(collection, id, data);
     }
 
     // Obtener un documento por su ID
     public Map<String, Object> getDocument(String collection, String id) throws ExecutionException, InterruptedException {
-        DocumentReference docRef = getFirestore().collection(collection).document(id);
-        ApiFuture<DocumentSnapshot> future = docRef.get();
-        DocumentSnapshot document = future.get();
-        
-        if (document.exists()) {
-            return document.getData();
-        } else {
-            return null;
+        return getDocumentAsync(collection, id).get();
+    }
+
+    // Versión asíncrona de getDocument; el futuro se completa con null si el documento no existe.
+    // Si la caché está activa, los documentos leídos se sirven desde memoria hasta que vencen o se escriben.
+    public CompletableFuture<Map<String, Object>> getDocumentAsync(String collection, String id) {
+        return medir(getTimer, "firebase_service.get", () -> cache != null
+            ? cache.get(collection, id, () -> loadDocument(collection, id))
+            : loadDocument(collection, id));
+    }
+
+    private CompletableFuture<Map<String, Object>> loadDocument(String collection, String id) {
+        return bulkhead(collection).execute(() -> store.get(collection, id))
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lee varios documentos de una colección. Los IDs repetidos se leen una sola vez; los que
+     * están en la caché se sirven desde memoria y el resto se pide al almacén en lotes de
+     * hasta IDS_POR_LECTURA (con Firestore, una llamada por lote), todos a la vez.
+     * Devuelve un resultado por ID, en el orden pedido: si un lote falla, solo sus IDs quedan
+     * con error y el futuro igual se completa con los demás.
+     */
+    public CompletableFuture<Map<String, DocumentResult>> getDocuments(String collection, Collection<String> ids) {
+        return medir(getManyTimer, "firebase_service.get_many", () -> leerDocumentos(collection, ids));
+    }
+
+    private CompletableFuture<Map<String, DocumentResult>> leerDocumentos(String collection, Collection<String> ids) {
+        List<String> unicos = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<String, DocumentResult> resultados = new ConcurrentHashMap<>();
+
+        List<CompletableFuture<Void>> lotes = new ArrayList<>();
+        for (int i = 0; i < unicos.size(); i += IDS_POR_LECTURA) {
+            List<String> lote = unicos.subList(i, Math.min(unicos.size(), i + IDS_POR_LECTURA));
+            CompletableFuture<Map<String, Map<String, Object>>> lectura = cache != null
+                ? cache.getAll(collection, lote, faltantes -> loadDocuments(collection, faltantes))
+                : loadDocuments(collection, lote);
+            lotes.add(lectura.handle((documentos, error) -> {
+                for (String id : lote) {
+                    Map<String, Object> documento = error == null ? documentos.get(id) : null;
+                    resultados.put(id, error != null ? DocumentResult.fallido(mensaje(error))
+                        : documento != null ? DocumentResult.encontrado(documento)
+                        : DocumentResult.inexistente());
+                }
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(lotes.toArray(CompletableFuture[]::new))
+            .thenApply(listo -> {
+                Map<String, DocumentResult> ordenados = new LinkedHashMap<>();
+                for (String id : unicos) {
+                    ordenados.put(id, resultados.get(id));
+                }
+                return ordenados;
+            });
+    }
+
+    private CompletableFuture<Map<String, Map<String, Object>>> loadDocuments(String collection, Collection<String> ids) {
+        return bulkhead(collection).execute(() -> store.getAll(collection, ids))
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Mide la operación y, si la solicitud actual se está trazando, la agrega como etapa de su traza
+    private static <T> CompletableFuture<T> medir(Timer timer, String etapa, Supplier<CompletableFuture<T>> operacion) {
+        long inicio = timer.iniciar();
+        RequestTrace traza = RequestTrace.actual();
+        int indice = traza != null ? traza.iniciar(etapa) : -1;
+        CompletableFuture<T> futuro = operacion.get();
+        futuro.whenComplete((resultado, error) -> {
+            timer.terminar(inicio, error);
+            if (traza != null) {
+                traza.terminar(indice);
+            }
+        });
+        return futuro;
+    }
+
+    // El mensaje del error original; un tiempo agotado no tiene mensaje, así que se usa su tipo
+    private static String mensaje(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    /**
+     * Recorre una colección página por página, opcionalmente solo los documentos con timestamp
+     * en [desde, hasta). Mientras se consume una página ya se están pidiendo hasta
+     * `paginasAdelantadas` siguientes, así que en memoria nunca hay más que esas páginas.
+     * El stream debe cerrarse para descartar las páginas pedidas que no se usen.
+     */
+    public Stream<DocumentPage> queryPages(String collection, Long desde, Long hasta, int tamanoPagina, int paginasAdelantadas) {
+        Paginas paginas = new Paginas(collection, new DocumentQuery(desde, hasta, tamanoPagina, null),
+            Math.max(1, paginasAdelantadas));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(paginas, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(paginas::cancelar);
+    }
+
+    private CompletableFuture<DocumentPage> queryPage(String collection, DocumentQuery query) {
+        return bulkhead(collection).execute(() -> store.query(collection, query))
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Páginas pedidas por adelantado: cada una se pide apenas llega el cursor de la anterior
+    private final class Paginas implements Iterator<DocumentPage> {
+        private final String collection;
+        private final DocumentQuery query;
+        private final int adelantadas;
+        private final Deque<CompletableFuture<DocumentPage>> pedidas = new ArrayDeque<>();
+        // El último pedido hecho; con una sola página adelantada la cola queda vacía al consumirla
+        private CompletableFuture<DocumentPage> ultima;
+        private DocumentPage siguiente;
+        private boolean terminado;
+
+        Paginas(String collection, DocumentQuery query, int adelantadas) {
+            this.collection = collection;
+            this.query = query;
+            this.adelantadas = adelantadas;
+            ultima = queryPage(collection, query);
+            pedidas.add(ultima);
+            rellenar();
+        }
+
+        // Encadena pedidos hasta tener `adelantadas` páginas en camino; tras la última página se encadena null
+        private void rellenar() {
+            while (pedidas.size() < adelantadas) {
+                ultima = ultima.thenCompose(pagina ->
+                    pagina == null || pagina.getSiguienteCursor() == null
+                        ? CompletableFuture.<DocumentPage>completedFuture(null)
+                        : queryPage(collection, query.despuesDe(pagina.getSiguienteCursor())));
+                pedidas.add(ultima);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null && !terminado) {
+                siguiente = pedidas.poll().join();
+                if (siguiente == null || siguiente.getSiguienteCursor() == null) {
+                    terminado = true;
+                } else {
+                    rellenar();
+                }
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public DocumentPage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            DocumentPage pagina = siguiente;
+            siguiente = null;
+            return pagina;
+        }
+
+        void cancelar() {
+            pedidas.forEach(pedida -> pedida.cancel(false));
+            pedidas.clear();
+        }
+    }
+
+    // Avisa de cada cambio de un documento (o de la colección si id es nulo). Antes de avisar se
+    // descarta el documento de la caché de lectura, así que una lectura posterior ve la versión nueva.
+    // Si el almacén deja de escuchar por un error se llama a alFallar. Devuelve la acción que deja de escuchar.
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente, Consumer<Throwable> alFallar) {
+        return store.listen(collection, id, cambio -> {
+            invalidate(collection, cambio.getId());
+            oyente.accept(cambio);
+        }, alFallar);
+    }
+
+    // Se completa cuando el almacén terminó de iniciarse (con Firestore, cuando Firebase está listo)
+    public CompletableFuture<Void> ready() {
+        return store.ready();
+    }
+
+    // Estado de los compartimentos de cada colección
+    public Map<String, Object> getBulkheadStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        bulkheads.forEach((collection, bulkhead) -> stats.put(collection, bulkhead.estadisticas()));
+        return stats;
+    }
+
+    // Aciertos, fallos y desalojos de la caché de lectura
+    public Map<String, Object> getCacheStats() {
+        return cache != null ? cache.estadisticas() : Map.of();
+    }
+
+    private void invalidate(String collection, String id) {
+        if (cache != null && id != null) {
+            cache.invalidate(collection, id);
+        }
+    }
+
+    private Bulkhead bulkhead(String collection) {
+        Bulkhead bulkhead = bulkheads.get(collection);
+        return bulkhead != null ? bulkhead : bulkheads.computeIfAbsent(collection, this::crearBulkhead);
+    }
+
+    private Bulkhead crearBulkhead(String collection) {
+        Bulkhead bulkhead = new Bulkhead(collection, bulkheadMaxConcurrent, bulkheadThreads);
+        metrics.gauge("firebase_bulkhead_in_flight", "Llamadas en curso por compartimento",
+            bulkhead::enCurso, "collection", collection);
+        metrics.gauge("firebase_bulkhead_queued", "Llamadas esperando un hilo del compartimento",
+            bulkhead::encoladas, "collection", collection);
+        metrics.counter("firebase_bulkhead_rejected_total", "Llamadas rechazadas por compartimento lleno",
+            bulkhead::rechazadas, "collection", collection);
+        return bulkhead;
+    }
+
+    // Al apagar la aplicación se confirman las escrituras que siguen en la cola
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writeBehind != null) {
+            writeBehind.close();
         }
+        bulkheads.values().forEach(Bulkhead::shutdown);
     }
-}
\ No newline at end of file
+}
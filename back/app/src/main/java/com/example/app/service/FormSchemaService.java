@@ -0,0 +1,298 @@
+package com.example.app.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Service;
+
+import com.example.app.factory.AdminFormFactory;
+import com.example.app.factory.FormField;
+import com.example.app.factory.GuestFormFactory;
+import com.example.app.model.FormFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Guarda, por rol, el formulario ya serializado a JSON junto con su ETag, su versión
+ * y el validador de envíos.
+ *
+ * Cada esquema se construye una sola vez a partir de su `FormFactory`. Al registrar
+ * una fábrica nueva (o invalidar un rol) el esquema se vuelve a generar en la
+ * siguiente solicitud.
+ *
+ * La versión de un esquema es el hash de su contenido (el mismo del ETag, sin comillas):
+ * el mismo formulario tiene la misma versión aunque se reinicie la aplicación. Por rol se
+ * conservan las últimas versiones para poder enviar solo los cambios (`delta`) a un cliente
+ * que ya tiene una de ellas; los cambios entre cada par de versiones se calculan una vez.
+ */
+@Service
+public class FormSchemaService {
+
+    // Versiones anteriores que se conservan por rol; un cliente con una más vieja recibe el formulario completo
+    static final int VERSIONES_GUARDADAS = 32;
+
+    private static final int DELTAS_GUARDADOS = 512;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final Map<String, Historial> historiales = new ConcurrentHashMap<>();
+    private final Cache<String, FormDelta> deltas = Caffeine.newBuilder()
+        .maximumSize(DELTAS_GUARDADOS)
+        .build();
+
+    public FormSchemaService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        registrar("admin", new AdminFormFactory());
+        registrar("guest", new GuestFormFactory());
+    }
+
+    /**
+     * Registra (o reemplaza) la fábrica de un rol. El esquema anterior deja de usarse,
+     * pero sigue en el historial para calcular los cambios desde él.
+     */
+    public void registrar(String role, FormFactory factory) {
+        String clave = role.toLowerCase(Locale.ROOT);
+        entradas.put(clave, new Entrada(clave, factory));
+    }
+
+    /**
+     * Descarta el esquema guardado de un rol para que se genere de nuevo con su fábrica.
+     */
+    public void invalidar(String role) {
+        entradas.computeIfPresent(role.toLowerCase(Locale.ROOT), (clave, entrada) -> new Entrada(clave, entrada.factory));
+    }
+
+    /**
+     * Devuelve el esquema del rol (sin distinguir mayúsculas).
+     * Lanza IllegalArgumentException si el rol no existe.
+     */
+    public FormSchema obtener(String role) {
+        Entrada entrada = entradas.get(role);
+        if (entrada == null) {
+            entrada = entradas.get(role.toLowerCase(Locale.ROOT));
+            if (entrada == null) {
+                throw new IllegalArgumentException("Rol no válido");
+            }
+        }
+
+        FormSchema schema = entrada.schema;
+        if (schema == null) {
+            // Si dos solicitudes llegan a la vez ambas generan el mismo contenido, y el historial
+            // devuelve la misma instancia a las dos
+            schema = historiales.computeIfAbsent(entrada.role, r -> new Historial())
+                .publicar(compilar(entrada.role, entrada.factory));
+            entrada.schema = schema;
+        }
+        return schema;
+    }
+
+    /**
+     * Cambios del formulario del rol desde la versión `desde` hasta la actual, o null si
+     * `desde` ya es la actual. Si `desde` es nula o ya no está en el historial, el resultado
+     * es un reemplazo completo (reset: todos los campos como agregados).
+     */
+    public FormDelta delta(String role, String desde) {
+        FormSchema actual = obtener(role);
+        if (actual.version.equals(desde)) {
+            return null;
+        }
+
+        Historial historial = historiales.get(actual.role);
+        FormSchema anterior = desde == null ? null : historial.buscar(desde);
+        String clave = actual.role + "|" + (anterior == null ? "" : anterior.version) + "|" + actual.version;
+        return deltas.get(clave, k -> calcularDelta(anterior, actual));
+    }
+
+    private FormSchema compilar(String role, FormFactory factory) {
+        List<FormField> campos = factory.createFormFields();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(campos);
+
+            // Contenido de cada campo por id, para comparar versiones
+            Map<String, JsonNode> porId = new LinkedHashMap<>();
+            for (FormField campo : campos) {
+                if (porId.put(campo.getId(), objectMapper.valueToTree(campo)) != null) {
+                    throw new IllegalStateException("Id de campo repetido en el formulario: " + campo.getId());
+                }
+            }
+            return new FormSchema(role, campos, porId, json, etag(json), FormValidator.compilar(campos));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el formulario", e);
+        }
+    }
+
+    private FormDelta calcularDelta(FormSchema anterior, FormSchema actual) {
+        Map<String, JsonNode> antes = anterior == null ? Map.of() : anterior.porId;
+
+        List<FormField> agregados = new ArrayList<>();
+        List<FormField> cambiados = new ArrayList<>();
+        for (FormField campo : actual.campos) {
+            JsonNode previo = antes.get(campo.getId());
+            if (previo == null) {
+                agregados.add(campo);
+            } else if (!previo.equals(actual.porId.get(campo.getId()))) {
+                cambiados.add(campo);
+            }
+        }
+
+        List<String> quitados = new ArrayList<>();
+        for (String id : antes.keySet()) {
+            if (!actual.porId.containsKey(id)) {
+                quitados.add(id);
+            }
+        }
+
+        // El orden solo se envía si cambió algo más que agregar o quitar campos al final
+        List<String> orden = new ArrayList<>(actual.porId.keySet());
+        List<String> ordenPrevio = new ArrayList<>(antes.keySet());
+        ordenPrevio.removeAll(quitados);
+        boolean mismoOrden = orden.subList(0, Math.min(orden.size(), ordenPrevio.size())).equals(ordenPrevio);
+
+        Map<String, Object> cuerpo = new LinkedHashMap<>();
+        cuerpo.put("role", actual.role);
+        cuerpo.put("from", anterior == null ? null : anterior.version);
+        cuerpo.put("to", actual.version);
+        cuerpo.put("reset", anterior == null);
+        cuerpo.put("added", agregados);
+        cuerpo.put("changed", cambiados);
+        cuerpo.put("removed", quitados);
+        if (anterior != null && !mismoOrden) {
+            cuerpo.put("order", orden);
+        }
+        try {
+            return new FormDelta(actual.version, objectMapper.writeValueAsBytes(cuerpo));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar los cambios del formulario", e);
+        }
+    }
+
+    // ETag fuerte: parte del hash SHA-256 del contenido, entre comillas
+    private static String etag(byte[] contenido) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido);
+            return "\"" + HexFormat.of().formatHex(Arrays.copyOf(hash, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Fábrica de un rol y su esquema generado (nulo hasta la primera solicitud)
+    private static final class Entrada {
+        private final String role;
+        private final FormFactory factory;
+        private volatile FormSchema schema;
+
+        Entrada(String role, FormFactory factory) {
+            this.role = role;
+            this.factory = factory;
+        }
+    }
+
+    // Últimas versiones publicadas de un rol, de la más vieja a la más nueva
+    private static final class Historial {
+        private final LinkedHashMap<String, FormSchema> versiones = new LinkedHashMap<>();
+
+        // Devuelve la versión ya guardada si el contenido es el mismo; si no, la agrega como la más nueva
+        synchronized FormSchema publicar(FormSchema schema) {
+            FormSchema existente = versiones.get(schema.version);
+            if (existente != null) {
+                // Vuelve a ser la más nueva (por ejemplo, si se revirtió un cambio)
+                versiones.remove(schema.version);
+                versiones.put(existente.version, existente);
+                return existente;
+            }
+            versiones.put(schema.version, schema);
+            Iterator<String> masViejas = versiones.keySet().iterator();
+            while (versiones.size() > VERSIONES_GUARDADAS) {
+                masViejas.next();
+                masViejas.remove();
+            }
+            return schema;
+        }
+
+        synchronized FormSchema buscar(String version) {
+            return versiones.get(version);
+        }
+    }
+
+    /**
+     * Esquema de formulario listo para enviarse: los campos, su JSON, el ETag, la versión y su validador.
+     */
+    public static final class FormSchema {
+        private final String role;
+        private final List<FormField> campos;
+        private final Map<String, JsonNode> porId;
+        private final byte[] json;
+        private final String etag;
+        private final String version;
+        private final FormValidator validator;
+
+        FormSchema(String role, List<FormField> campos, Map<String, JsonNode> porId, byte[] json, String etag,
+                   FormValidator validator) {
+            this.role = role;
+            this.campos = campos;
+            this.porId = porId;
+            this.json = json;
+            this.etag = etag;
+            this.version = etag.substring(1, etag.length() - 1);
+            this.validator = validator;
+        }
+
+        public List<FormField> getCampos() {
+            return campos;
+        }
+
+        // Se devuelve el arreglo compartido: no debe modificarse
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        // Validador de envíos compilado junto con el esquema
+        public FormValidator getValidator() {
+            return validator;
+        }
+    }
+
+    /**
+     * Cambios entre dos versiones de un formulario, ya serializados a JSON.
+     */
+    public static final class FormDelta {
+        private final String version;
+        private final byte[] json;
+
+        FormDelta(String version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+
+        // Versión a la que lleva aplicar los cambios
+        public String getVersion() {
+            return version;
+        }
+
+        // Se devuelve el arreglo compartido: no debe modificarse
+        public byte[] getJson() {
+            return json;
+        }
+    }
+}
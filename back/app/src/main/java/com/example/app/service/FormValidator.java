@@ -0,0 +1,204 @@
+package com.example.app.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.example.app.factory.FormField;
+
+/**
+ * Valida envíos de un formulario contra los campos que publica su `FormFactory`.
+ *
+ * Se compila una vez por versión del esquema: cada campo queda como una regla con su
+ * comprobación según el tipo (las expresiones regulares se compilan una sola vez para
+ * toda la aplicación) y la marca de obligatorio. Validar un envío es recorrer esas reglas,
+ * sin reflexión; la lista de errores solo se crea si hay alguno.
+ *
+ * Un envío es un objeto JSON con un valor por id de campo. Los valores pueden ser texto,
+ * números o booleanos; un valor nulo o en blanco cuenta como ausente.
+ */
+public final class FormValidator {
+
+    // Largo máximo de cualquier valor, para que un envío no pueda mandar textos enormes
+    static final int LARGO_MAXIMO = 1000;
+
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    private static final Pattern NUMERO = Pattern.compile("-?\\d{1,15}(\\.\\d{1,15})?");
+    private static final Pattern TELEFONO = Pattern.compile("\\+?[0-9 ()-]{6,20}");
+    private static final Pattern URL = Pattern.compile("https?://\\S+");
+    private static final Pattern FECHA = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern SIN_ESPACIOS = Pattern.compile("\\S+");
+
+    private static final List<FieldError> SIN_ERRORES = List.of();
+
+    private final Regla[] reglas;
+    private final Map<String, Regla> porId;
+
+    private FormValidator(Regla[] reglas) {
+        this.reglas = reglas;
+        this.porId = new HashMap<>(reglas.length * 2);
+        for (Regla regla : reglas) {
+            porId.put(regla.id, regla);
+        }
+    }
+
+    /**
+     * Arma las reglas de validación de los campos dados.
+     */
+    public static FormValidator compilar(List<FormField> campos) {
+        Regla[] reglas = new Regla[campos.size()];
+        for (int i = 0; i < reglas.length; i++) {
+            FormField campo = campos.get(i);
+            reglas[i] = new Regla(campo.getId(), campo.isRequired(), comprobacion(campo.getType()));
+        }
+        return new FormValidator(reglas);
+    }
+
+    /**
+     * Devuelve los errores del envío, o una lista vacía si es válido.
+     */
+    public List<FieldError> validar(Map<String, ?> envio) {
+        List<FieldError> errores = SIN_ERRORES;
+
+        for (Regla regla : reglas) {
+            Object valor = envio.get(regla.id);
+            String error = regla.comprobar(valor);
+            if (error != null) {
+                errores = agregar(errores, new FieldError(regla.id, error));
+            }
+        }
+
+        // Valores que no corresponden a ningún campo del formulario
+        for (String id : envio.keySet()) {
+            if (!porId.containsKey(id)) {
+                errores = agregar(errores, new FieldError(id, FieldError.DESCONOCIDO));
+            }
+        }
+        return errores;
+    }
+
+    /**
+     * Valida varios envíos; el resultado tiene una lista de errores por envío, en el mismo orden.
+     */
+    public List<List<FieldError>> validarTodos(Collection<? extends Map<String, ?>> envios) {
+        List<List<FieldError>> resultados = new ArrayList<>(envios.size());
+        for (Map<String, ?> envio : envios) {
+            resultados.add(validar(envio));
+        }
+        return resultados;
+    }
+
+    private static List<FieldError> agregar(List<FieldError> errores, FieldError error) {
+        if (errores == SIN_ERRORES) {
+            errores = new ArrayList<>(4);
+        }
+        errores.add(error);
+        return errores;
+    }
+
+    // Comprobación del valor según el tipo del campo; los tipos desconocidos solo limitan el largo
+    private static Comprobacion comprobacion(String tipo) {
+        switch (tipo == null ? "" : tipo.toLowerCase(Locale.ROOT)) {
+            case "email":
+                return patron(EMAIL, FieldError.EMAIL);
+            case "password":
+                // Entre 8 y 128 caracteres, sin espacios
+                return valor -> valor.length() < 8 || valor.length() > 128 || !SIN_ESPACIOS.matcher(valor).matches()
+                    ? FieldError.PASSWORD : null;
+            case "number":
+                return patron(NUMERO, FieldError.NUMERO);
+            case "tel":
+                return patron(TELEFONO, FieldError.TELEFONO);
+            case "url":
+                return patron(URL, FieldError.URL);
+            case "date":
+                return patron(FECHA, FieldError.FECHA);
+            case "checkbox":
+                return valor -> "true".equals(valor) || "false".equals(valor) || "on".equals(valor)
+                    ? null : FieldError.BOOLEANO;
+            default:
+                return valor -> null;
+        }
+    }
+
+    private static Comprobacion patron(Pattern patron, String error) {
+        return valor -> patron.matcher(valor).matches() ? null : error;
+    }
+
+    @FunctionalInterface
+    private interface Comprobacion {
+        // Devuelve el código de error, o null si el valor es válido
+        String comprobar(String valor);
+    }
+
+    private static final class Regla {
+        private final String id;
+        private final boolean obligatorio;
+        private final Comprobacion comprobacion;
+
+        Regla(String id, boolean obligatorio, Comprobacion comprobacion) {
+            this.id = id;
+            this.obligatorio = obligatorio;
+            this.comprobacion = comprobacion;
+        }
+
+        String comprobar(Object valor) {
+            String texto;
+            if (valor == null) {
+                texto = null;
+            } else if (valor instanceof String s) {
+                texto = s;
+            } else if (valor instanceof Number || valor instanceof Boolean) {
+                texto = valor.toString();
+            } else {
+                // Objetos y arreglos no son valores de un campo
+                return FieldError.TIPO;
+            }
+
+            if (texto == null || texto.isBlank()) {
+                return obligatorio ? FieldError.OBLIGATORIO : null;
+            }
+            if (texto.length() > LARGO_MAXIMO) {
+                return FieldError.LARGO;
+            }
+            return comprobacion.comprobar(texto);
+        }
+    }
+
+    /**
+     * Error de un campo: el id del campo y un código estable que el cliente puede traducir.
+     */
+    public static final class FieldError {
+        public static final String OBLIGATORIO = "required";
+        public static final String DESCONOCIDO = "unknown_field";
+        public static final String TIPO = "invalid_type";
+        public static final String LARGO = "too_long";
+        public static final String EMAIL = "invalid_email";
+        public static final String PASSWORD = "invalid_password";
+        public static final String NUMERO = "invalid_number";
+        public static final String TELEFONO = "invalid_tel";
+        public static final String URL = "invalid_url";
+        public static final String FECHA = "invalid_date";
+        public static final String BOOLEANO = "invalid_checkbox";
+
+        private final String field;
+        private final String code;
+
+        FieldError(String field, String code) {
+            this.field = field;
+            this.code = code;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getCode() {
+            return code;
+        }
+    }
+}
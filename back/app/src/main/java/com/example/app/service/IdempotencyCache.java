@@ -0,0 +1,160 @@
+package com.example.app.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Tabla de idempotencia para los endpoints que escriben documentos.
+ *
+ * Guarda, por clave, el futuro de la respuesta de la primera solicitud. Una solicitud
+ * repetida dentro de la ventana recibe esa misma respuesta sin volver a escribir; si la
+ * primera sigue en curso, la repetida espera su resultado en lugar de escribir en paralelo.
+ * Solo se conservan las respuestas 2xx: los errores se quitan para que el reintento se ejecute.
+ *
+ * Cada respuesta queda ligada al hash del cuerpo que la produjo: si una Idempotency-Key se
+ * reutiliza con otro cuerpo, se responde 422 en lugar de devolver la respuesta de otra solicitud.
+ */
+@Service
+public class IdempotencyCache {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPETIDA = "Idempotent-Replayed";
+
+    // Serializa los mapas con las claves ordenadas para que el mismo contenido dé el mismo hash
+    private static final ObjectMapper CANONICO = JsonMapper.builder()
+        .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+        .build();
+
+    private final AsyncCache<String, Respuesta> respuestas;
+    private final boolean usarHashDelCuerpo;
+    private final LongAdder nuevas;
+    private final LongAdder repetidas;
+
+    public IdempotencyCache(@Value("${firebase.idempotency.max-size:100000}") long maxSize,
+                            @Value("${firebase.idempotency.ttl-seconds:120}") long ttlSeconds,
+                            @Value("${firebase.idempotency.hash-body:true}") boolean usarHashDelCuerpo,
+                            MetricsRegistry metrics) {
+        this.respuestas = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .buildAsync();
+        this.usarHashDelCuerpo = usarHashDelCuerpo;
+        String ayuda = "Solicitudes de escritura según si se ejecutaron o se respondieron desde la tabla de idempotencia";
+        this.nuevas = metrics.counter("idempotency_requests_total", ayuda, "result", "executed");
+        this.repetidas = metrics.counter("idempotency_requests_total", ayuda, "result", "replayed");
+        metrics.gauge("idempotency_entries", "Respuestas guardadas en la tabla de idempotencia",
+            () -> respuestas.synchronous().estimatedSize());
+    }
+
+    /**
+     * Clave de la solicitud: el encabezado Idempotency-Key si viene, o si no el hash SHA-256
+     * del cuerpo. Devuelve null si no hay encabezado y el hash está desactivado.
+     */
+    public String clave(String endpoint, String idempotencyKey, Object cuerpo) {
+        String clave = claveExplicita(endpoint, idempotencyKey);
+        if (clave != null || !usarHashDelCuerpo) {
+            return clave;
+        }
+        String hash = hash(cuerpo);
+        // Sin hash la solicitud simplemente no se deduplica
+        return hash != null ? endpoint + "|sha256|" + hash : null;
+    }
+
+    /**
+     * Clave solo a partir del encabezado Idempotency-Key, o null si no viene. Para los endpoints
+     * en los que dos solicitudes iguales deben dar respuestas distintas (por ejemplo, el login,
+     * que crea una sesión nueva cada vez) y solo se deduplican si el cliente lo pide.
+     */
+    public String claveExplicita(String endpoint, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        return endpoint + "|key|" + idempotencyKey.trim();
+    }
+
+    /**
+     * Ejecuta `operacion` solo si no hay una respuesta para `clave` (hecha o en curso).
+     * Las respuestas repetidas llevan el encabezado Idempotent-Replayed: true; si la respuesta
+     * guardada es de un cuerpo distinto de `cuerpo`, se responde 422 sin ejecutar nada.
+     */
+    public CompletableFuture<ResponseEntity<?>> ejecutar(String clave, Object cuerpo,
+                                                         Supplier<CompletableFuture<ResponseEntity<?>>> operacion) {
+        if (clave == null) {
+            return operacion.get();
+        }
+
+        String hashCuerpo = hash(cuerpo);
+        boolean[] ejecutada = {false};
+        CompletableFuture<Respuesta> futuro = respuestas.get(clave, (k, executor) -> {
+            ejecutada[0] = true;
+            return operacion.get().thenApply(respuesta -> new Respuesta(hashCuerpo, respuesta));
+        });
+
+        if (ejecutada[0]) {
+            nuevas.increment();
+            // Los errores no se guardan: el cliente debe poder reintentar
+            futuro.thenAccept(guardada -> {
+                if (!guardada.respuesta.getStatusCode().is2xxSuccessful()) {
+                    respuestas.asMap().remove(clave, futuro);
+                }
+            });
+            return futuro.thenApply(guardada -> guardada.respuesta);
+        }
+
+        return futuro.<ResponseEntity<?>>thenApply(guardada -> {
+            if (!Objects.equals(guardada.hashCuerpo, hashCuerpo)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of(
+                    "success", false,
+                    "message", "La clave " + HEADER + " ya se usó con otro cuerpo"
+                ));
+            }
+            repetidas.increment();
+            ResponseEntity<?> respuesta = guardada.respuesta;
+            return ResponseEntity.status(respuesta.getStatusCode())
+                .headers(respuesta.getHeaders())
+                .header(HEADER_REPETIDA, "true")
+                .body(respuesta.getBody());
+        });
+    }
+
+    // Hash SHA-256 del cuerpo serializado en forma canónica, o null si no se puede calcular
+    private static String hash(Object cuerpo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(CANONICO.writeValueAsBytes(cuerpo));
+            return HexFormat.of().formatHex(hash);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    // Respuesta guardada junto con el hash del cuerpo que la produjo
+    private static final class Respuesta {
+        private final String hashCuerpo;
+        private final ResponseEntity<?> respuesta;
+
+        Respuesta(String hashCuerpo, ResponseEntity<?> respuesta) {
+            this.hashCuerpo = hashCuerpo;
+            this.respuesta = respuesta;
+        }
+    }
+}
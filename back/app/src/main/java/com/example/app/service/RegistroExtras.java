@@ -0,0 +1,168 @@
+package com.example.app.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.app.pedido.ExtraConfigurable;
+import com.example.app.pedido.Pedido;
+import com.example.app.pedido.PedidoBase;
+import com.example.app.pedido.PedidoDecorador;
+import com.example.app.pedido.TablaPrecios;
+
+/**
+ * Registro de los decoradores de `Pedido` disponibles, indexados por código de extra.
+ *
+ * El catálogo se lee de un archivo de propiedades y se vuelve a cargar cuando cambia.
+ * Por omisión es un archivo externo (config/extras.properties), porque un recurso dentro del
+ * jar no se puede vigilar; mientras ese archivo no exista se usa el catálogo incluido en la
+ * aplicación, y apenas se crea se carga. Cada carga produce una `TablaPrecios` nueva e inmutable que reemplaza a la anterior
+ * de forma atómica, así que las cotizaciones en curso nunca esperan a la recarga.
+ */
+@Service
+public class RegistroExtras {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroExtras.class);
+
+    // Catálogo incluido en la aplicación, para cuando no hay archivo externo
+    private static final Resource INCLUIDO = new ClassPathResource("extras.properties");
+
+    private final Resource archivo;
+
+    // Copia vigente del catálogo; se reemplaza completa en cada recarga
+    private volatile TablaPrecios tabla;
+    private volatile long ultimaModificacion;
+
+    public RegistroExtras(@Value("${pedido.extras.archivo:file:config/extras.properties}") Resource archivo) {
+        this.archivo = archivo;
+        this.tabla = TablaPrecios.porDefecto();
+        if (archivo.exists()) {
+            recargar();
+        } else if (INCLUIDO.exists()) {
+            cargar(INCLUIDO);
+        }
+
+        if (modificable()) {
+            log.atInfo().addKeyValue("file", archivo).log("Se vigilan los cambios del catálogo de extras");
+        } else {
+            log.atWarn().addKeyValue("file", archivo)
+                .log("El catálogo de extras no es un archivo: sus cambios no se aplican hasta reiniciar");
+        }
+    }
+
+    /**
+     * Devuelve la tabla de precios vigente. La lectura es un simple acceso volátil.
+     */
+    public TablaPrecios tabla() {
+        return tabla;
+    }
+
+    // Revisa periódicamente si el archivo cambió y, en ese caso, vuelve a cargarlo
+    @Scheduled(fixedDelayString = "${pedido.extras.recarga-ms:5000}")
+    public void revisarCambios() {
+        long modificacion = modificacion();
+        if (modificacion > 0 && modificacion != ultimaModificacion) {
+            try {
+                recargar();
+            } catch (RuntimeException e) {
+                // Se conserva la tabla anterior y no se reintenta hasta que el archivo vuelva a cambiar
+                log.atError().addKeyValue("file", archivo).setCause(e).log("Error al recargar el catálogo de extras");
+                ultimaModificacion = modificacion;
+            }
+        }
+    }
+
+    /**
+     * Lee el catálogo y publica una tabla nueva. Si el archivo tiene errores,
+     * se conserva la tabla anterior.
+     */
+    public synchronized void recargar() {
+        long modificacion = modificacion();
+        cargar(archivo);
+        ultimaModificacion = modificacion;
+    }
+
+    private void cargar(Resource origen) {
+        Properties propiedades = new Properties();
+        try (InputStream in = origen.getInputStream();
+             Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            propiedades.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el catálogo de extras: " + origen, e);
+        }
+
+        Map<String, Function<Pedido, Pedido>> decoradores = new LinkedHashMap<>();
+        for (String codigo : propiedades.stringPropertyNames()) {
+            decoradores.put(codigo, crearFabrica(codigo, propiedades.getProperty(codigo).trim()));
+        }
+
+        tabla = new TablaPrecios(new PedidoBase(), decoradores);
+        log.atInfo().addKeyValue("file", origen).addKeyValue("extras", decoradores.size()).log("Catálogo de extras cargado");
+    }
+
+    // "Descripción;costo" crea un ExtraConfigurable; cualquier otro valor es el nombre de una clase decoradora
+    private static Function<Pedido, Pedido> crearFabrica(String codigo, String valor) {
+        int separador = valor.lastIndexOf(';');
+        if (separador >= 0) {
+            String descripcion = valor.substring(0, separador).trim();
+            long costoCentavos;
+            try {
+                // El costo se escribe en pesos ("2.50") y se guarda exacto en centavos
+                costoCentavos = new BigDecimal(valor.substring(separador + 1).trim()).movePointRight(2).longValueExact();
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw new IllegalArgumentException("Costo inválido para el extra '" + codigo + "': " + valor, e);
+            }
+            return pedido -> new ExtraConfigurable(pedido, descripcion, costoCentavos);
+        }
+
+        Constructor<? extends PedidoDecorador> constructor;
+        try {
+            constructor = Class.forName(valor).asSubclass(PedidoDecorador.class).getConstructor(Pedido.class);
+        } catch (ClassNotFoundException | NoSuchMethodException | ClassCastException e) {
+            throw new IllegalArgumentException("Decorador inválido para el extra '" + codigo + "': " + valor, e);
+        }
+        return pedido -> {
+            try {
+                return constructor.newInstance(pedido);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("No se pudo crear el decorador del extra '" + codigo + "'", e);
+            }
+        };
+    }
+
+    // Si el catálogo es un archivo del sistema (aunque todavía no exista), que es lo que se puede vigilar
+    private boolean modificable() {
+        try {
+            archivo.getFile();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // Fecha de modificación del archivo, o 0 si no existe o no se puede conocer (por ejemplo, dentro de un jar)
+    private long modificacion() {
+        try {
+            return archivo.getFile().lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
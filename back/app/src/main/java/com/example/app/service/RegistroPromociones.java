@@ -0,0 +1,50 @@
+package com.example.app.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.pedido.Promociones;
+import com.example.app.pedido.ReglaPromocion;
+
+/**
+ * Reglas de precios vigentes para los pedidos (precios especiales, combos y porcentajes).
+ *
+ * Igual que el catálogo de extras, cada reemplazo compila un conjunto nuevo e inmutable
+ * y lo publica de forma atómica: las cotizaciones en curso terminan con el conjunto que
+ * leyeron y nunca esperan al reemplazo.
+ */
+@Service
+public class RegistroPromociones {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroPromociones.class);
+
+    // Conjunto vigente; se reemplaza completo
+    private volatile Promociones promociones = Promociones.VACIAS;
+
+    public RegistroPromociones(MetricsRegistry metrics) {
+        metrics.gauge("pricing_rules_active", "Reglas de precios del conjunto vigente",
+            () -> promociones.tamano());
+    }
+
+    /**
+     * Devuelve el conjunto vigente. La lectura es un simple acceso volátil.
+     */
+    public Promociones promociones() {
+        return promociones;
+    }
+
+    /**
+     * Compila las reglas y reemplaza el conjunto vigente. Si alguna es inválida lanza
+     * IllegalArgumentException y se conserva el conjunto anterior.
+     */
+    public Promociones reemplazar(List<ReglaPromocion> reglas) {
+        Promociones nuevas = Promociones.compilar(reglas);
+        promociones = nuevas;
+        log.atInfo().addKeyValue("rules", nuevas.tamano()).log("Reglas de precios cargadas");
+        return nuevas;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.app.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.example.app.store.DocumentWrite;
+
+/**
+ * Escritor diferido (write-behind) para documentos.
+ *
+ * Las escrituras se encolan en una cola acotada y un hilo en segundo plano las agrupa
+ * en lotes, que se confirman cuando se junta `maxLote` escrituras o cuando pasa la
+ * ventana de tiempo, lo que ocurra primero. Cada escritura devuelve un futuro que se
+ * completa cuando su lote quedó guardado.
+ *
+ * Si la cola está llena, quien escribe espera hasta `esperaMaxima` (contrapresión) y
+ * después la escritura se rechaza con RejectedExecutionException.
+ */
+public class WriteBehindWriter implements AutoCloseable {
+
+    /**
+     * Guarda un lote de escrituras de forma atómica y devuelve la hora de la confirmación.
+     */
+    @FunctionalInterface
+    public interface BatchCommitter {
+        String commit(List<PendingWrite> lote) throws Exception;
+    }
+
+    /**
+     * Una escritura pendiente junto con el futuro que se completa al confirmarse su lote.
+     */
+    public static final class PendingWrite extends DocumentWrite {
+        private final CompletableFuture<String> resultado = new CompletableFuture<>();
+
+        PendingWrite(String collection, String id, Map<String, Object> data) {
+            super(collection, id, data);
+        }
+    }
+
+    private final BatchCommitter committer;
+    private final BlockingQueue<PendingWrite> cola;
+    private final int maxLote;
+    private final long ventanaNanos;
+    private final long esperaMaximaNanos;
+    private final Thread hilo;
+
+    private volatile boolean cerrado;
+
+    public WriteBehindWriter(BatchCommitter committer, int capacidad, int maxLote, Duration ventana, Duration esperaMaxima) {
+        if (capacidad <= 0 || maxLote <= 0) {
+            throw new IllegalArgumentException("La capacidad y el tamaño de lote deben ser positivos");
+        }
+        this.committer = committer;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.maxLote = maxLote;
+        this.ventanaNanos = ventana.toNanos();
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+        this.hilo = new Thread(this::ejecutar, "write-behind");
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Encola una escritura. El futuro se completa con la hora de confirmación del lote,
+     * o con la excepción si el lote falla.
+     */
+    public CompletableFuture<String> enqueue(String collection, String id, Map<String, Object> data) throws InterruptedException {
+        if (cerrado) {
+            throw new RejectedExecutionException("El escritor diferido está cerrado");
+        }
+        PendingWrite escritura = new PendingWrite(collection, id, data);
+        if (!cola.offer(escritura, esperaMaximaNanos, TimeUnit.NANOSECONDS)) {
+            throw new RejectedExecutionException("La cola de escrituras está llena");
+        }
+        // Si se cerró mientras esperaba sitio en la cola, el hilo de fondo puede no verla nunca
+        if (cerrado && cola.remove(escritura)) {
+            throw new RejectedExecutionException("El escritor diferido está cerrado");
+        }
+        return escritura.resultado;
+    }
+
+    /**
+     * Número de escrituras que esperan ser confirmadas.
+     */
+    public int pendientes() {
+        return cola.size();
+    }
+
+    /**
+     * Deja de aceptar escrituras, confirma las que quedan en la cola y espera al hilo de fondo.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        cerrado = true;
+        hilo.join(TimeUnit.SECONDS.toMillis(30));
+
+        // Escrituras que entraron justo mientras se cerraba: se rechazan en lugar de perderse en silencio
+        List<PendingWrite> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        for (PendingWrite escritura : restantes) {
+            escritura.resultado.completeExceptionally(new RejectedExecutionException("El escritor diferido está cerrado"));
+        }
+    }
+
+    private void ejecutar() {
+        List<PendingWrite> lote = new ArrayList<>(maxLote);
+        try {
+            while (true) {
+                PendingWrite primera = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primera == null) {
+                    if (cerrado) {
+                        break;
+                    }
+                    continue;
+                }
+                lote.add(primera);
+                completarLote(lote);
+                confirmar(lote);
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Lo que haya quedado (por ejemplo, si el hilo fue interrumpido) se confirma antes de salir
+        if (!lote.isEmpty()) {
+            confirmar(lote);
+            lote.clear();
+        }
+        while (cola.drainTo(lote, maxLote) > 0) {
+            confirmar(lote);
+            lote.clear();
+        }
+    }
+
+    // Junta escrituras hasta llenar el lote o agotar la ventana de tiempo
+    private void completarLote(List<PendingWrite> lote) throws InterruptedException {
+        long limite = System.nanoTime() + ventanaNanos;
+        while (lote.size() < maxLote) {
+            cola.drainTo(lote, maxLote - lote.size());
+            if (lote.size() >= maxLote) {
+                return;
+            }
+            long restante = limite - System.nanoTime();
+            if (restante <= 0 || cerrado) {
+                return;
+            }
+            PendingWrite siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+            if (siguiente == null) {
+                return;
+            }
+            lote.add(siguiente);
+        }
+    }
+
+    private void confirmar(List<PendingWrite> lote) {
+        try {
+            String hora = committer.commit(lote);
+            for (PendingWrite escritura : lote) {
+                escritura.resultado.complete(hora);
+            }
+        } catch (Exception e) {
+            for (PendingWrite escritura : lote) {
+                escritura.resultado.completeExceptionally(e);
+            }
+        }
+    }
+}
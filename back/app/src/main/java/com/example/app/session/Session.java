@@ -0,0 +1,62 @@
+package com.example.app.session;
+
+import java.time.Instant;
+
+/**
+ * Sesión iniciada con un login. Es inmutable: el token se entrega al cliente y la
+ * sesión deja de valer al llegar a `expiraEn`.
+ */
+public final class Session {
+
+    // Rol de las sesiones que pueden cambiar la configuración (por ejemplo, las reglas de precios)
+    public static final String ADMIN = "admin";
+
+    private final String token;
+    private final String id;
+    private final String email;
+    private final String role;
+    private final long creadaEn;
+    private final long expiraEn;
+
+    Session(String token, String id, String email, String role, long creadaEn, long expiraEn) {
+        this.token = token;
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.creadaEn = creadaEn;
+        this.expiraEn = expiraEn;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    // Identificador público de la sesión (se usa como loginId); a diferencia del token, no da acceso
+    public String getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public long getCreadaEn() {
+        return creadaEn;
+    }
+
+    public long getExpiraEn() {
+        return expiraEn;
+    }
+
+    public String getExpiraEnIso() {
+        return Instant.ofEpochMilli(expiraEn).toString();
+    }
+
+    boolean vencida(long ahora) {
+        return ahora >= expiraEn;
+    }
+}
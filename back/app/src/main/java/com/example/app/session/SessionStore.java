@@ -0,0 +1,128 @@
+package com.example.app.session;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.app.metrics.MetricsRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sesiones activas en memoria, indexadas por token y por ID (el loginId público).
+ *
+ * Los tokens se reparten en varias franjas (cada una un ConcurrentHashMap) según su hash,
+ * para que los logins concurrentes no compitan por la misma tabla al crecer. Validar un
+ * token es una sola búsqueda en su franja más una comparación de hora. Las sesiones
+ * vencidas las quita una rueda de tiempo, sin recorrer la tabla.
+ */
+@Service
+public class SessionStore {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final ConcurrentHashMap<String, Session>[] franjas;
+    private final ConcurrentHashMap<String, Session>[] franjasPorId;
+    private final int mascara;
+    private final long duracionMs;
+    private final TimingWheel<Session> vencimientos;
+
+    @SuppressWarnings("unchecked")
+    public SessionStore(@Value("${app.session.ttl-minutes:30}") long ttlMinutes,
+                        @Value("${app.session.stripes:16}") int stripes,
+                        @Value("${app.session.tick-ms:1000}") long tickMs,
+                        MetricsRegistry metrics) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("app.session.stripes debe ser una potencia de 2");
+        }
+        this.franjas = new ConcurrentHashMap[stripes];
+        this.franjasPorId = new ConcurrentHashMap[stripes];
+        for (int i = 0; i < stripes; i++) {
+            franjas[i] = new ConcurrentHashMap<>();
+            franjasPorId[i] = new ConcurrentHashMap<>();
+        }
+        this.mascara = stripes - 1;
+        this.duracionMs = ttlMinutes * 60_000;
+        // Solo se quita la sesión si sigue siendo la misma; un cierre previo ya la habrá quitado
+        this.vencimientos = new TimingWheel<>(tickMs, this::quitar);
+        this.vencimientos.iniciar("session-expiry");
+
+        metrics.gauge("sessions_active", "Sesiones en memoria, incluidas las vencidas que aún no se quitaron", this::activas);
+    }
+
+    /**
+     * Crea una sesión nueva para el usuario y devuelve su token.
+     */
+    public Session crear(String email, String role) {
+        byte[] bytes = new byte[32];
+        ALEATORIO.nextBytes(bytes);
+        String token = BASE64.encodeToString(bytes);
+
+        long ahora = System.currentTimeMillis();
+        Session sesion = new Session(token, UUID.randomUUID().toString(), email, role, ahora, ahora + duracionMs);
+        franja(franjasPorId, sesion.getId()).put(sesion.getId(), sesion);
+        franja(franjas, token).put(token, sesion);
+        vencimientos.programar(sesion, duracionMs);
+        return sesion;
+    }
+
+    /**
+     * Devuelve la sesión del token, o null si no existe o ya venció.
+     */
+    public Session validar(String token) {
+        if (token == null) {
+            return null;
+        }
+        return vigente(franja(franjas, token).get(token));
+    }
+
+    /**
+     * Devuelve la sesión con ese ID (loginId), o null si no existe o ya venció.
+     */
+    public Session buscar(String id) {
+        if (id == null) {
+            return null;
+        }
+        return vigente(franja(franjasPorId, id).get(id));
+    }
+
+    /**
+     * Cierra la sesión del token. Devuelve false si no existía.
+     */
+    public boolean cerrar(String token) {
+        Session sesion = token != null ? franja(franjas, token).get(token) : null;
+        return sesion != null && quitar(sesion);
+    }
+
+    public int activas() {
+        int total = 0;
+        for (ConcurrentHashMap<String, Session> franja : franjas) {
+            total += franja.size();
+        }
+        return total;
+    }
+
+    private static Session vigente(Session sesion) {
+        return sesion != null && !sesion.vencida(System.currentTimeMillis()) ? sesion : null;
+    }
+
+    private boolean quitar(Session sesion) {
+        franja(franjasPorId, sesion.getId()).remove(sesion.getId(), sesion);
+        return franja(franjas, sesion.getToken()).remove(sesion.getToken(), sesion);
+    }
+
+    private ConcurrentHashMap<String, Session> franja(ConcurrentHashMap<String, Session>[] tabla, String clave) {
+        int h = clave.hashCode();
+        return tabla[(h ^ (h >>> 16)) & mascara];
+    }
+
+    @PreDestroy
+    public void close() {
+        vencimientos.close();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.app.session;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rueda de tiempo jerárquica para vencer elementos sin recorrerlos todos.
+ *
+ * Hay cuatro niveles de 64 ranuras. Una ranura del nivel 0 dura un tic, una del nivel 1
+ * dura 64 tics, y así sucesivamente (con tics de un segundo cubre unos 194 días). Cada
+ * elemento va a la ranura del nivel más bajo que alcanza su vencimiento; cuando el nivel
+ * inferior da la vuelta, la ranura siguiente del nivel superior se vuelve a repartir hacia
+ * abajo. Programar y vencer cuestan O(1) sin importar cuántos elementos haya.
+ *
+ * Cualquier hilo puede programar: los elementos nuevos entran por una cola sin locks y
+ * solo el hilo de la rueda toca las ranuras. `alVencer` se llama en ese hilo.
+ */
+public final class TimingWheel<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int BITS = 6;
+    private static final int RANURAS = 1 << BITS;
+    private static final int MASCARA = RANURAS - 1;
+    private static final int NIVELES = 4;
+    private static final long ALCANCE = 1L << (BITS * NIVELES);
+
+    private final long tickMs;
+    private final Consumer<T> alVencer;
+    private final ArrayDeque<Entrada<T>>[][] ranuras;
+    private final ConcurrentLinkedQueue<Entrada<T>> nuevas = new ConcurrentLinkedQueue<>();
+    private final long origenNanos = System.nanoTime();
+
+    // Último tic procesado; solo lo modifica el hilo de la rueda
+    private long tickActual;
+
+    private Thread hilo;
+    private volatile boolean cerrada;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, Consumer<T> alVencer) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("El tic debe ser positivo");
+        }
+        this.tickMs = tickMs;
+        this.alVencer = alVencer;
+        this.ranuras = new ArrayDeque[NIVELES][RANURAS];
+        for (int nivel = 0; nivel < NIVELES; nivel++) {
+            for (int ranura = 0; ranura < RANURAS; ranura++) {
+                ranuras[nivel][ranura] = new ArrayDeque<>();
+            }
+        }
+    }
+
+    /**
+     * Inicia el hilo que avanza la rueda.
+     */
+    public synchronized void iniciar(String nombreHilo) {
+        if (hilo != null) {
+            return;
+        }
+        hilo = new Thread(this::ejecutar, nombreHilo);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Programa `valor` para que venza dentro de `retrasoMs` milisegundos (redondeado al tic siguiente).
+     */
+    public void programar(T valor, long retrasoMs) {
+        programarEn(valor, ahoraMs() + Math.max(0, retrasoMs));
+    }
+
+    // Milisegundos desde que se creó la rueda, con reloj monótono
+    long ahoraMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - origenNanos);
+    }
+
+    void programarEn(T valor, long venceMs) {
+        nuevas.add(new Entrada<>(valor, (venceMs + tickMs - 1) / tickMs));
+    }
+
+    /**
+     * Procesa los elementos nuevos y todos los tics transcurridos hasta `ahoraMs`.
+     * Solo debe llamarlo un hilo a la vez (el de la rueda, o una prueba).
+     */
+    void avanzarHasta(long ahoraMs) {
+        long tickObjetivo = ahoraMs / tickMs;
+        Entrada<T> entrada;
+        while ((entrada = nuevas.poll()) != null) {
+            insertar(entrada);
+        }
+        while (tickActual < tickObjetivo) {
+            tickActual++;
+            // Primero se reparten los niveles superiores que dieron la vuelta, de arriba hacia abajo
+            for (int nivel = NIVELES - 1; nivel > 0; nivel--) {
+                if ((tickActual & ((1L << (BITS * nivel)) - 1)) == 0) {
+                    repartir(ranuras[nivel][(int) (tickActual >>> (BITS * nivel)) & MASCARA]);
+                }
+            }
+            ArrayDeque<Entrada<T>> vencidas = ranuras[0][(int) tickActual & MASCARA];
+            while ((entrada = vencidas.poll()) != null) {
+                vencer(entrada);
+            }
+        }
+    }
+
+    private void repartir(ArrayDeque<Entrada<T>> ranura) {
+        int cantidad = ranura.size();
+        for (int i = 0; i < cantidad; i++) {
+            insertar(ranura.poll());
+        }
+    }
+
+    private void insertar(Entrada<T> entrada) {
+        long distancia = entrada.tickVence - tickActual;
+        if (distancia <= 0) {
+            vencer(entrada);
+            return;
+        }
+        // Los vencimientos más allá del alcance se dejan en el último nivel y se reubican al repartirlo
+        long tick = distancia < ALCANCE ? entrada.tickVence : tickActual + ALCANCE - 1;
+        distancia = tick - tickActual;
+        int nivel = 0;
+        while (distancia >= (1L << (BITS * (nivel + 1)))) {
+            nivel++;
+        }
+        ranuras[nivel][(int) (tick >>> (BITS * nivel)) & MASCARA].add(entrada);
+    }
+
+    private void vencer(Entrada<T> entrada) {
+        try {
+            alVencer.accept(entrada.valor);
+        } catch (RuntimeException e) {
+            log.atError().setCause(e).log("Error al vencer un elemento de la rueda de tiempo");
+        }
+    }
+
+    private void ejecutar() {
+        while (!cerrada) {
+            avanzarHasta(ahoraMs());
+            long siguiente = (tickActual + 1) * tickMs;
+            long espera = siguiente - ahoraMs();
+            if (espera > 0) {
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        cerrada = true;
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    private static final class Entrada<T> {
+        private final T valor;
+        private final long tickVence;
+
+        Entrada(T valor, long tickVence) {
+            this.valor = valor;
+            this.tickVence = tickVence;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.app.store;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Oyentes de cambios de los almacenes locales (memoria y registro en disco), que no tienen
+ * un mecanismo propio como los snapshot listeners de Firestore. Se avisa en el mismo hilo
+ * que escribió, después de la escritura.
+ */
+final class ChangeListeners {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeListeners.class);
+
+    private final Map<String, List<Oyente>> porColeccion = new ConcurrentHashMap<>();
+
+    Runnable agregar(String collection, String id, Consumer<DocumentPage.Entry> oyente) {
+        Oyente nuevo = new Oyente(id, oyente);
+        List<Oyente> oyentes = porColeccion.computeIfAbsent(collection, c -> new CopyOnWriteArrayList<>());
+        oyentes.add(nuevo);
+        return () -> oyentes.remove(nuevo);
+    }
+
+    void avisar(String collection, String id, Map<String, Object> data) {
+        List<Oyente> oyentes = porColeccion.get(collection);
+        if (oyentes == null || oyentes.isEmpty()) {
+            return;
+        }
+        // Una sola copia, de solo lectura, para todos los oyentes
+        DocumentPage.Entry cambio = new DocumentPage.Entry(id,
+            data != null ? Collections.unmodifiableMap(new LinkedHashMap<>(data)) : null);
+        for (Oyente oyente : oyentes) {
+            if (oyente.id == null || oyente.id.equals(id)) {
+                try {
+                    oyente.destino.accept(cambio);
+                } catch (RuntimeException e) {
+                    log.atError().addKeyValue("collection", collection).setCause(e).log("Error en un oyente");
+                }
+            }
+        }
+    }
+
+    private static final class Oyente {
+        private final String id;
+        private final Consumer<DocumentPage.Entry> destino;
+
+        Oyente(String id, Consumer<DocumentPage.Entry> destino) {
+            this.id = id;
+            this.destino = destino;
+        }
+    }
+}
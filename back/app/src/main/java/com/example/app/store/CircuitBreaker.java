@@ -0,0 +1,149 @@
+package com.example.app.store;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.app.metrics.MetricsRegistry;
+
+/**
+ * Cortocircuito (circuit breaker) por ventana de las últimas llamadas.
+ *
+ * CLOSED: deja pasar todo y recuerda el resultado de las últimas `ventana` llamadas; si
+ * con al menos la mitad de la ventana llena la proporción de fallos llega a `tasaFallos`,
+ * se abre. OPEN: rechaza todo durante `abiertoMs`. HALF_OPEN: deja pasar una sola llamada
+ * de prueba; si sale bien vuelve a CLOSED con la ventana vacía, si falla vuelve a OPEN.
+ *
+ * Cada cambio de estado se cuenta en circuit_breaker_transitions_total, el estado actual
+ * se expone en circuit_breaker_state (0 cerrado, 1 medio abierto, 2 abierto) y se informa
+ * en el log.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum Estado { CLOSED, HALF_OPEN, OPEN }
+
+    private final String nombre;
+    private final boolean[] fallos;
+    private final int minimo;
+    private final double tasaFallos;
+    private final long abiertoMs;
+    private final LongSupplier relojMs;
+    private final LongAdder[] transiciones = new LongAdder[Estado.values().length];
+
+    private Estado estado = Estado.CLOSED;
+    private int posicion;
+    private int llamadas;
+    private int fallidas;
+    private long abiertoDesde;
+    private boolean pruebaEnCurso;
+
+    public CircuitBreaker(String nombre, int ventana, double tasaFallos, long abiertoMs,
+                          LongSupplier relojMs, MetricsRegistry metrics) {
+        if (ventana < 1 || tasaFallos <= 0 || tasaFallos > 1) {
+            throw new IllegalArgumentException("Se requiere ventana >= 1 y 0 < tasaFallos <= 1");
+        }
+        this.nombre = nombre;
+        this.fallos = new boolean[ventana];
+        this.minimo = Math.max(1, ventana / 2);
+        this.tasaFallos = tasaFallos;
+        this.abiertoMs = abiertoMs;
+        this.relojMs = relojMs;
+
+        metrics.gauge("circuit_breaker_state", "Estado del cortocircuito: 0 cerrado, 1 medio abierto, 2 abierto",
+            () -> estado().ordinal(), "name", nombre);
+        for (Estado e : Estado.values()) {
+            transiciones[e.ordinal()] = metrics.counter("circuit_breaker_transitions_total",
+                "Cambios de estado del cortocircuito", "name", nombre, "state", e.name());
+        }
+    }
+
+    /**
+     * Indica si la llamada puede hacerse. Quien recibe true debe informar después
+     * el resultado con `exito` o `fallo`.
+     */
+    public synchronized boolean permitir() {
+        switch (estado) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (relojMs.getAsLong() - abiertoDesde < abiertoMs) {
+                    return false;
+                }
+                cambiar(Estado.HALF_OPEN);
+                pruebaEnCurso = true;
+                return true;
+            default:
+                if (pruebaEnCurso) {
+                    return false;
+                }
+                pruebaEnCurso = true;
+                return true;
+        }
+    }
+
+    public synchronized void exito() {
+        if (estado == Estado.HALF_OPEN) {
+            reiniciarVentana();
+            cambiar(Estado.CLOSED);
+        } else if (estado == Estado.CLOSED) {
+            registrar(false);
+        }
+    }
+
+    public synchronized void fallo() {
+        if (estado == Estado.HALF_OPEN) {
+            abrir();
+        } else if (estado == Estado.CLOSED) {
+            registrar(true);
+            if (llamadas >= minimo && fallidas >= tasaFallos * llamadas) {
+                abrir();
+            }
+        }
+    }
+
+    public synchronized Estado estado() {
+        return estado;
+    }
+
+    private void registrar(boolean fallo) {
+        if (llamadas == fallos.length) {
+            if (fallos[posicion]) {
+                fallidas--;
+            }
+        } else {
+            llamadas++;
+        }
+        fallos[posicion] = fallo;
+        if (fallo) {
+            fallidas++;
+        }
+        posicion = (posicion + 1) % fallos.length;
+    }
+
+    private void abrir() {
+        abiertoDesde = relojMs.getAsLong();
+        cambiar(Estado.OPEN);
+    }
+
+    private void reiniciarVentana() {
+        posicion = 0;
+        llamadas = 0;
+        fallidas = 0;
+    }
+
+    private void cambiar(Estado nuevo) {
+        Estado anterior = estado;
+        estado = nuevo;
+        pruebaEnCurso = false;
+        transiciones[nuevo.ordinal()].increment();
+        (nuevo == Estado.OPEN ? log.atWarn() : log.atInfo())
+            .addKeyValue("breaker", nombre)
+            .addKeyValue("from", anterior)
+            .addKeyValue("to", nuevo)
+            .log("Cambio de estado del cortocircuito");
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.app.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Una página de resultados y el cursor para pedir la siguiente (nulo si no hay más).
+ */
+public class DocumentPage {
+
+    private final List<Entry> documentos;
+    private final String siguienteCursor;
+
+    public DocumentPage(List<Entry> documentos, String siguienteCursor) {
+        this.documentos = documentos;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<Entry> getDocumentos() {
+        return documentos;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    // El cursor lleva la hora (vacía si la consulta no tiene rango) y el ID del último documento
+    static String cursor(String hora, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((hora + "\n" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Devuelve {hora, id}, o null si no hay cursor
+    static String[] leerCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.indexOf('\n');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new String[] {texto.substring(0, separador), texto.substring(separador + 1)};
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    /**
+     * Un documento de la página con su ID.
+     */
+    public static final class Entry {
+        private final String id;
+        private final Map<String, Object> data;
+
+        public Entry(String id, Map<String, Object> data) {
+            this.id = id;
+            this.data = data;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Map<String, Object> getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.app.store;
+
+import java.util.Map;
+
+/**
+ * Consulta de una página de documentos de una colección.
+ *
+ * Si se da un rango de hora, solo entran los documentos cuyo campo `timestamp` (milisegundos
+ * desde 1970) está en [desde, hasta). El cursor es el que devolvió la página anterior; es
+ * opaco y solo sirve para el mismo almacén y el mismo rango.
+ */
+public class DocumentQuery {
+
+    public static final String CAMPO_HORA = "timestamp";
+
+    private final Long desde;
+    private final Long hasta;
+    private final int limite;
+    private final String cursor;
+
+    public DocumentQuery(Long desde, Long hasta, int limite, String cursor) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        this.desde = desde;
+        this.hasta = hasta;
+        this.limite = limite;
+        this.cursor = cursor;
+    }
+
+    // La misma consulta, a partir de otro cursor
+    public DocumentQuery despuesDe(String cursor) {
+        return new DocumentQuery(desde, hasta, limite, cursor);
+    }
+
+    public Long getDesde() {
+        return desde;
+    }
+
+    public Long getHasta() {
+        return hasta;
+    }
+
+    public boolean tieneRango() {
+        return desde != null || hasta != null;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    // Indica si el documento entra en el rango de hora; sin rango entran todos
+    boolean enRango(Map<String, Object> documento) {
+        if (!tieneRango()) {
+            return true;
+        }
+        if (!(documento.get(CAMPO_HORA) instanceof Number numero)) {
+            return false;
+        }
+        long hora = numero.longValue();
+        return (desde == null || hora >= desde) && (hasta == null || hora < hasta);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.app.store;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Almacén de documentos organizado en colecciones, como Firestore.
+ *
+ * `FirebaseService` trabaja contra esta interfaz, así que la aplicación puede usar
+ * Firestore, un almacén en memoria (pruebas y carga) o el registro local en disco
+ * sin cambiar el resto del código. Todas las operaciones son asíncronas.
+ */
+public interface DocumentStore extends AutoCloseable {
+
+    /**
+     * Guarda (o reemplaza) un documento. Si `id` es nulo, el almacén genera uno.
+     * El futuro se completa con la hora de la escritura.
+     */
+    CompletableFuture<String> save(String collection, String id, Map<String, Object> data);
+
+    /**
+     * Guarda varias escrituras juntas. El futuro se completa con la hora de la escritura.
+     */
+    CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes);
+
+    /**
+     * Lee un documento; el futuro se completa con null si no existe.
+     */
+    CompletableFuture<Map<String, Object>> get(String collection, String id);
+
+    /**
+     * Lee varios documentos de una colección en una sola llamada. El mapa tiene una entrada por
+     * cada documento que existe; los que no existen no aparecen. Por omisión lee cada uno con
+     * `get`, todos a la vez.
+     */
+    default CompletableFuture<Map<String, Map<String, Object>>> getAll(String collection, Collection<String> ids) {
+        Map<String, CompletableFuture<Map<String, Object>>> lecturas = new LinkedHashMap<>();
+        for (String id : ids) {
+            lecturas.put(id, get(collection, id));
+        }
+        return CompletableFuture.allOf(lecturas.values().toArray(CompletableFuture[]::new)).thenApply(listo -> {
+            Map<String, Map<String, Object>> documentos = new LinkedHashMap<>();
+            lecturas.forEach((id, lectura) -> {
+                Map<String, Object> documento = lectura.join();
+                if (documento != null) {
+                    documentos.put(id, documento);
+                }
+            });
+            return documentos;
+        });
+    }
+
+    /**
+     * Lee una página de la colección. Cada almacén define su orden, pero es estable: recorrer
+     * las páginas con los cursores devuelve una sola vez cada documento que no cambió mientras tanto.
+     */
+    CompletableFuture<DocumentPage> query(String collection, DocumentQuery query);
+
+    /**
+     * Avisa a `oyente` de cada cambio posterior de un documento (`id`) o de toda la colección
+     * (`id` nulo): recibe el ID y los datos nuevos, o datos nulos si el documento se borró.
+     * El oyente no debe bloquear. Si el almacén deja de escuchar por un error, llama a
+     * `alFallar` y no avisa más cambios. Devuelve la acción que deja de escuchar.
+     */
+    Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente, Consumer<Throwable> alFallar);
+
+    /**
+     * Se completa cuando el almacén puede atender llamadas, o con el error si no pudo iniciarse.
+     * Por omisión el almacén está listo desde que se crea.
+     */
+    default CompletableFuture<Void> ready() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Libera los recursos del almacén. Por omisión no hace nada.
+     */
+    @Override
+    default void close() {
+    }
+}
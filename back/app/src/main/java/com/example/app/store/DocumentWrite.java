@@ -0,0 +1,31 @@
+package com.example.app.store;
+
+import java.util.Map;
+
+/**
+ * Una escritura de documento: colección, ID (nulo para que el almacén genere uno) y datos.
+ */
+public class DocumentWrite {
+
+    private final String collection;
+    private final String id;
+    private final Map<String, Object> data;
+
+    public DocumentWrite(String collection, String id, Map<String, Object> data) {
+        this.collection = collection;
+        this.id = id;
+        this.data = data;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+}
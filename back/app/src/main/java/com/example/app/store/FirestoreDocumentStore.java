@@ -0,0 +1,225 @@
+package com.example.app.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Almacén respaldado por Cloud Firestore.
+ *
+ * Firestore puede seguir inicializándose cuando llegan las primeras llamadas: cada operación
+ * espera (sin bloquear hilos) a que el cliente esté listo, y falla si la inicialización falló.
+ */
+public class FirestoreDocumentStore implements DocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FirestoreDocumentStore.class);
+
+    private final CompletableFuture<Firestore> firestore;
+
+    public FirestoreDocumentStore(Firestore firestore) {
+        this(CompletableFuture.completedFuture(firestore));
+    }
+
+    public FirestoreDocumentStore(CompletableFuture<Firestore> firestore) {
+        this.firestore = firestore;
+    }
+
+    @Override
+    public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+        return firestore.thenCompose(db -> toCompletable(reference(db, collection, id).set(data)))
+            .thenApply(resultado -> resultado.getUpdateTime().toString());
+    }
+
+    @Override
+    public CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes) {
+        return firestore.thenCompose(db -> {
+            WriteBatch batch = db.batch();
+            for (DocumentWrite write : writes) {
+                batch.set(reference(db, write.getCollection(), write.getId()), write.getData());
+            }
+            return toCompletable(batch.commit());
+        }).thenApply(FirestoreDocumentStore::horaDelLote);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+        return firestore.thenCompose(db -> toCompletable(db.collection(collection).document(id).get()))
+            .thenApply(document -> document.exists() ? document.getData() : null);
+    }
+
+    // Todos los documentos con una sola llamada a Firestore
+    @Override
+    public CompletableFuture<Map<String, Map<String, Object>>> getAll(String collection, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return firestore.thenCompose(db -> {
+            DocumentReference[] referencias = new DocumentReference[ids.size()];
+            int i = 0;
+            for (String id : ids) {
+                referencias[i++] = db.collection(collection).document(id);
+            }
+            return toCompletable(db.getAll(referencias));
+        }).thenApply(resultado -> {
+            Map<String, Map<String, Object>> documentos = new LinkedHashMap<>();
+            for (DocumentSnapshot documento : resultado) {
+                if (documento.exists()) {
+                    documentos.put(documento.getId(), documento.getData());
+                }
+            }
+            return documentos;
+        });
+    }
+
+    // Con rango de hora se ordena por (timestamp, ID), como exige Firestore para filtrar por rango;
+    // sin rango, solo por ID, así que también entran los documentos sin timestamp
+    @Override
+    public CompletableFuture<DocumentPage> query(String collection, DocumentQuery query) {
+        boolean porHora = query.tieneRango();
+        return firestore.thenCompose(db -> {
+            Query consulta = db.collection(collection);
+            if (query.getDesde() != null) {
+                consulta = consulta.whereGreaterThanOrEqualTo(DocumentQuery.CAMPO_HORA, query.getDesde());
+            }
+            if (query.getHasta() != null) {
+                consulta = consulta.whereLessThan(DocumentQuery.CAMPO_HORA, query.getHasta());
+            }
+            if (porHora) {
+                consulta = consulta.orderBy(DocumentQuery.CAMPO_HORA);
+            }
+            consulta = consulta.orderBy(FieldPath.documentId()).limit(query.getLimite());
+
+            String[] cursor = DocumentPage.leerCursor(query.getCursor());
+            if (cursor != null) {
+                consulta = porHora
+                    ? consulta.startAfter(Long.parseLong(cursor[0]), cursor[1])
+                    : consulta.startAfter(cursor[1]);
+            }
+            return toCompletable(consulta.get());
+        }).thenApply(resultado -> {
+            List<DocumentPage.Entry> pagina = new ArrayList<>(resultado.size());
+            for (QueryDocumentSnapshot documento : resultado.getDocuments()) {
+                pagina.add(new DocumentPage.Entry(documento.getId(), documento.getData()));
+            }
+            // Una página incompleta es la última
+            if (pagina.size() < query.getLimite()) {
+                return new DocumentPage(pagina, null);
+            }
+            DocumentPage.Entry ultimo = pagina.get(pagina.size() - 1);
+            String hora = porHora ? String.valueOf(((Number) ultimo.getData().get(DocumentQuery.CAMPO_HORA)).longValue()) : "";
+            return new DocumentPage(pagina, DocumentPage.cursor(hora, ultimo.getId()));
+        });
+    }
+
+    // Un snapshot listener de Firestore sobre el documento o la colección. La primera respuesta
+    // es el estado inicial (con una colección, todos sus documentos) y se descarta: solo se
+    // avisan los cambios posteriores. Tras un error Firestore ya no avisa nada, así que se informa
+    // con alFallar para que quien escucha vuelva a suscribirse
+    @Override
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente,
+                           Consumer<Throwable> alFallar) {
+        AtomicReference<ListenerRegistration> registro = new AtomicReference<>();
+        AtomicBoolean cancelado = new AtomicBoolean();
+        AtomicBoolean inicial = new AtomicBoolean(true);
+
+        firestore.thenAccept(db -> {
+            ListenerRegistration nuevo = id != null
+                ? db.collection(collection).document(id).addSnapshotListener((documento, error) -> {
+                    if (error != null) {
+                        log.atError().addKeyValue("collection", collection).addKeyValue("id", id)
+                            .setCause(error).log("Error al escuchar cambios");
+                        alFallar.accept(error);
+                    } else if (!inicial.getAndSet(false)) {
+                        oyente.accept(new DocumentPage.Entry(id, documento.exists() ? documento.getData() : null));
+                    }
+                })
+                : db.collection(collection).addSnapshotListener((consulta, error) -> {
+                    if (error != null) {
+                        log.atError().addKeyValue("collection", collection)
+                            .setCause(error).log("Error al escuchar cambios");
+                        alFallar.accept(error);
+                    } else if (!inicial.getAndSet(false)) {
+                        for (DocumentChange cambio : consulta.getDocumentChanges()) {
+                            oyente.accept(new DocumentPage.Entry(cambio.getDocument().getId(),
+                                cambio.getType() == DocumentChange.Type.REMOVED ? null : cambio.getDocument().getData()));
+                        }
+                    }
+                });
+            registro.set(nuevo);
+            // Si se canceló mientras Firebase se inicializaba, se quita enseguida
+            if (cancelado.get()) {
+                quitar(registro);
+            }
+        });
+
+        return () -> {
+            cancelado.set(true);
+            quitar(registro);
+        };
+    }
+
+    @Override
+    public CompletableFuture<Void> ready() {
+        return firestore.thenApply(db -> null);
+    }
+
+    private static void quitar(AtomicReference<ListenerRegistration> registro) {
+        ListenerRegistration actual = registro.getAndSet(null);
+        if (actual != null) {
+            actual.remove();
+        }
+    }
+
+    private static DocumentReference reference(Firestore firestore, String collection, String id) {
+        // Si no hay ID, dejar que Firestore genere uno
+        return id != null
+            ? firestore.collection(collection).document(id)
+            : firestore.collection(collection).document();
+    }
+
+    private static String horaDelLote(List<WriteResult> resultados) {
+        return resultados.isEmpty() ? Timestamp.now().toString() : resultados.get(0).getUpdateTime().toString();
+    }
+
+    // Convierte un ApiFuture de Firestore en CompletableFuture sin bloquear ningún hilo
+    static <T> CompletableFuture<T> toCompletable(ApiFuture<T> apiFuture) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ApiFutures.addCallback(apiFuture, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T resultado) {
+                future.complete(resultado);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                future.completeExceptionally(error);
+            }
+        }, MoreExecutors.directExecutor());
+        return future;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.app.store;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Almacén en memoria, para pruebas y pruebas de carga sin un proyecto de Firebase.
+ * Los datos se pierden al reiniciar. Cada colección está ordenada por ID, que es el
+ * orden de las páginas de `query`.
+ */
+public class InMemoryDocumentStore implements DocumentStore {
+
+    private final Map<String, ConcurrentNavigableMap<String, Map<String, Object>>> colecciones = new ConcurrentHashMap<>();
+    private final ChangeListeners oyentes = new ChangeListeners();
+
+    @Override
+    public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+        guardar(collection, id, data);
+        return CompletableFuture.completedFuture(Instant.now().toString());
+    }
+
+    @Override
+    public CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes) {
+        for (DocumentWrite write : writes) {
+            guardar(write.getCollection(), write.getId(), write.getData());
+        }
+        return CompletableFuture.completedFuture(Instant.now().toString());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+        Map<String, Map<String, Object>> documentos = colecciones.get(collection);
+        Map<String, Object> documento = documentos != null ? documentos.get(id) : null;
+        return CompletableFuture.completedFuture(documento != null ? new LinkedHashMap<>(documento) : null);
+    }
+
+    // Los cambios se avisan en el hilo que escribió: no hay errores que terminen la escucha
+    @Override
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente,
+                           Consumer<Throwable> alFallar) {
+        return oyentes.agregar(collection, id, oyente);
+    }
+
+    @Override
+    public CompletableFuture<DocumentPage> query(String collection, DocumentQuery query) {
+        NavigableMap<String, Map<String, Object>> documentos = colecciones.get(collection);
+        if (documentos == null) {
+            return CompletableFuture.completedFuture(new DocumentPage(List.of(), null));
+        }
+        try {
+            String[] cursor = DocumentPage.leerCursor(query.getCursor());
+            if (cursor != null) {
+                documentos = documentos.tailMap(cursor[1], false);
+            }
+
+            List<DocumentPage.Entry> pagina = new ArrayList<>(Math.min(query.getLimite(), 1024));
+            for (Map.Entry<String, Map<String, Object>> documento : documentos.entrySet()) {
+                if (query.enRango(documento.getValue())) {
+                    pagina.add(new DocumentPage.Entry(documento.getKey(), new LinkedHashMap<>(documento.getValue())));
+                    if (pagina.size() == query.getLimite()) {
+                        return CompletableFuture.completedFuture(
+                            new DocumentPage(pagina, DocumentPage.cursor("", documento.getKey())));
+                    }
+                }
+            }
+            return CompletableFuture.completedFuture(new DocumentPage(pagina, null));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void guardar(String collection, String id, Map<String, Object> data) {
+        String clave = id != null ? id : UUID.randomUUID().toString();
+        // Se guarda una copia para que cambios posteriores del llamador no afecten al documento
+        colecciones.computeIfAbsent(collection, c -> new ConcurrentSkipListMap<>()).put(clave, new LinkedHashMap<>(data));
+        oyentes.avisar(collection, clave, data);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.app.store;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.metrics.Timer;
+
+/**
+ * Envoltorio que mide la latencia, las llamadas en curso y los errores de cada operación
+ * de otro almacén. Devuelve los mismos futuros que el almacén envuelto.
+ */
+public class InstrumentedDocumentStore implements DocumentStore {
+
+    private final DocumentStore destino;
+    private final Timer save;
+    private final Timer saveAll;
+    private final Timer get;
+    private final Timer getAll;
+    private final Timer query;
+
+    public InstrumentedDocumentStore(DocumentStore destino, MetricsRegistry metrics) {
+        this.destino = destino;
+        String ayuda = "Latencia de las operaciones del almacén de documentos";
+        String tipo = destino.getClass().getSimpleName();
+        this.save = metrics.timer("document_store_seconds", ayuda, "store", tipo, "operation", "save");
+        this.saveAll = metrics.timer("document_store_seconds", ayuda, "store", tipo, "operation", "save_all");
+        this.get = metrics.timer("document_store_seconds", ayuda, "store", tipo, "operation", "get");
+        this.getAll = metrics.timer("document_store_seconds", ayuda, "store", tipo, "operation", "get_all");
+        this.query = metrics.timer("document_store_seconds", ayuda, "store", tipo, "operation", "query");
+    }
+
+    @Override
+    public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+        return medir(save, () -> destino.save(collection, id, data));
+    }
+
+    @Override
+    public CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes) {
+        return medir(saveAll, () -> destino.saveAll(writes));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+        return medir(get, () -> destino.get(collection, id));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Map<String, Object>>> getAll(String collection, Collection<String> ids) {
+        return medir(getAll, () -> destino.getAll(collection, ids));
+    }
+
+    @Override
+    public CompletableFuture<DocumentPage> query(String collection, DocumentQuery consulta) {
+        return medir(query, () -> destino.query(collection, consulta));
+    }
+
+    @Override
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente,
+                           Consumer<Throwable> alFallar) {
+        return destino.listen(collection, id, oyente, alFallar);
+    }
+
+    @Override
+    public CompletableFuture<Void> ready() {
+        return destino.ready();
+    }
+
+    @Override
+    public void close() {
+        destino.close();
+    }
+
+    private static <T> CompletableFuture<T> medir(Timer timer, Supplier<CompletableFuture<T>> llamada) {
+        long inicio = timer.iniciar();
+        CompletableFuture<T> futuro;
+        try {
+            futuro = llamada.get();
+        } catch (RuntimeException e) {
+            timer.terminar(inicio, e);
+            throw e;
+        }
+        futuro.whenComplete((resultado, error) -> timer.terminar(inicio, error));
+        return futuro;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.app.store;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Envoltorio que agrega latencia y fallos a otro almacén, para probar sin Firestore cómo
+ * se comporta la aplicación cuando el almacén se pone lento o falla.
+ *
+ * Cada operación tarda `latenciaMs`; una proporción `tasaLentas` tarda además `lentasMs`
+ * y una proporción `tasaFallos` termina con error. Los valores se pueden cambiar en
+ * cualquier momento y se aplican a las llamadas siguientes.
+ */
+public class LatencyInjectingDocumentStore implements DocumentStore {
+
+    private final DocumentStore destino;
+
+    private volatile long latenciaMs;
+    private volatile double tasaLentas;
+    private volatile long lentasMs;
+    private volatile double tasaFallos;
+
+    public LatencyInjectingDocumentStore(DocumentStore destino) {
+        this.destino = destino;
+    }
+
+    public void setLatenciaMs(long latenciaMs) {
+        this.latenciaMs = latenciaMs;
+    }
+
+    public void setLentas(double tasa, long ms) {
+        this.tasaLentas = tasa;
+        this.lentasMs = ms;
+    }
+
+    public void setTasaFallos(double tasaFallos) {
+        this.tasaFallos = tasaFallos;
+    }
+
+    @Override
+    public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+        return demorar(() -> destino.save(collection, id, data));
+    }
+
+    @Override
+    public CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes) {
+        return demorar(() -> destino.saveAll(writes));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+        return demorar(() -> destino.get(collection, id));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Map<String, Object>>> getAll(String collection, Collection<String> ids) {
+        return demorar(() -> destino.getAll(collection, ids));
+    }
+
+    @Override
+    public CompletableFuture<DocumentPage> query(String collection, DocumentQuery query) {
+        return demorar(() -> destino.query(collection, query));
+    }
+
+    // Los avisos de cambios llegan sin demora
+    @Override
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente,
+                           Consumer<Throwable> alFallar) {
+        return destino.listen(collection, id, oyente, alFallar);
+    }
+
+    @Override
+    public CompletableFuture<Void> ready() {
+        return destino.ready();
+    }
+
+    @Override
+    public void close() {
+        destino.close();
+    }
+
+    // La llamada al almacén envuelto se hace cuando termina la demora, sin ocupar un hilo mientras tanto
+    private <T> CompletableFuture<T> demorar(Supplier<CompletableFuture<T>> llamada) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        long demora = latenciaMs + (azar.nextDouble() < tasaLentas ? lentasMs : 0);
+        boolean falla = azar.nextDouble() < tasaFallos;
+
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(demora, TimeUnit.MILLISECONDS).execute(() -> {
+            if (falla) {
+                resultado.completeExceptionally(new IllegalStateException("Fallo inyectado en el almacén"));
+                return;
+            }
+            try {
+                llamada.get().whenComplete((valor, error) -> {
+                    if (error != null) {
+                        resultado.completeExceptionally(error);
+                    } else {
+                        resultado.complete(valor);
+                    }
+                });
+            } catch (RuntimeException e) {
+                resultado.completeExceptionally(e);
+            }
+        });
+        return resultado;
+    }
+}
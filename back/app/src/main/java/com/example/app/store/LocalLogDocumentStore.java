@@ -0,0 +1,436 @@
+package com.example.app.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Almacén local persistente basado en un registro de solo agregado (append-only).
+ *
+ * Los documentos se escriben al final de segmentos de tamaño fijo mapeados en memoria
+ * (`segment-000001.log`, ...), y un índice en memoria apunta a la última versión de cada
+ * uno. Escribir es copiar bytes en el mapa, sin llamadas al sistema por documento; los
+ * cambios se bajan a disco periódicamente y al cerrar.
+ *
+ * Al arrancar, el índice se reconstruye recorriendo los segmentos en orden; un registro
+ * incompleto o con CRC incorrecto marca el final del registro válido. Un hilo en segundo
+ * plano compacta los segmentos cerrados con muchas versiones obsoletas: copia sus registros
+ * vigentes al segmento activo y elimina el archivo.
+ *
+ * Formato de cada registro: [int largo del cuerpo][int CRC32 del cuerpo][cuerpo], donde el
+ * cuerpo es [short largo colección][colección][short largo id][id][documento JSON].
+ */
+public class LocalLogDocumentStore implements DocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalLogDocumentStore.class);
+
+    private static final int CABECERA = 8;
+    private static final TypeReference<Map<String, Object>> TIPO_DOCUMENTO = new TypeReference<>() { };
+
+    private final Path directorio;
+    private final int tamanoSegmento;
+    private final double umbralCompactacion;
+    private final ObjectMapper objectMapper;
+
+    // Ubicación de la última versión de cada documento, por "colección/id". Está ordenado para
+    // que una colección sea un rango contiguo de claves y `query` pueda recorrerla por ID
+    private final ConcurrentNavigableMap<String, Ubicacion> indice = new ConcurrentSkipListMap<>();
+    private final List<Segmento> segmentos = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService mantenimiento;
+    private final ChangeListeners oyentes = new ChangeListeners();
+
+    // El segmento activo y su posición solo se modifican con el candado de escritura (this)
+    private volatile Segmento activo;
+
+    /**
+     * Abre (o crea) el registro en `directorio` y reconstruye el índice.
+     *
+     * @param tamanoSegmento      bytes por segmento
+     * @param umbralCompactacion  fracción de bytes vigentes por debajo de la cual se compacta un segmento
+     * @param intervaloSyncMs     cada cuánto se bajan los cambios a disco
+     */
+    public LocalLogDocumentStore(Path directorio, int tamanoSegmento, double umbralCompactacion,
+                                 long intervaloSyncMs, ObjectMapper objectMapper) throws IOException {
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        this.umbralCompactacion = umbralCompactacion;
+        // Los enteros se leen como Long, igual que los devuelve Firestore
+        this.objectMapper = objectMapper.copy().enable(DeserializationFeature.USE_LONG_FOR_INTS);
+
+        Files.createDirectories(directorio);
+        recuperar();
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "local-store-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        mantenimiento.scheduleWithFixedDelay(this::sincronizar, intervaloSyncMs, intervaloSyncMs, TimeUnit.MILLISECONDS);
+        mantenimiento.scheduleWithFixedDelay(this::compactar, 10, 10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+        try {
+            String clave = id != null ? id : UUID.randomUUID().toString();
+            escribir(collection, clave, serializar(data));
+            oyentes.avisar(collection, clave, data);
+            return CompletableFuture.completedFuture(Instant.now().toString());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes) {
+        try {
+            // Se serializa fuera del candado; luego se agregan todas juntas
+            List<byte[]> documentos = new ArrayList<>(writes.size());
+            for (DocumentWrite write : writes) {
+                documentos.add(serializar(write.getData()));
+            }
+            String[] ids = new String[writes.size()];
+            synchronized (this) {
+                for (int i = 0; i < writes.size(); i++) {
+                    DocumentWrite write = writes.get(i);
+                    ids[i] = write.getId() != null ? write.getId() : UUID.randomUUID().toString();
+                    escribir(write.getCollection(), ids[i], documentos.get(i));
+                }
+            }
+            // Los avisos salen fuera del candado
+            for (int i = 0; i < ids.length; i++) {
+                oyentes.avisar(writes.get(i).getCollection(), ids[i], writes.get(i).getData());
+            }
+            return CompletableFuture.completedFuture(Instant.now().toString());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Los cambios se avisan en el hilo que escribió: no hay errores que terminen la escucha
+    @Override
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente,
+                           Consumer<Throwable> alFallar) {
+        return oyentes.agregar(collection, id, oyente);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+        Ubicacion ubicacion = indice.get(clave(collection, id));
+        if (ubicacion == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.completedFuture(leer(ubicacion));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<DocumentPage> query(String collection, DocumentQuery query) {
+        try {
+            // Las claves de la colección van de "colección/" (incluida) a "colección0" ('0' sigue a '/')
+            String prefijo = collection + '/';
+            String[] cursor = DocumentPage.leerCursor(query.getCursor());
+            Map<String, Ubicacion> rango = cursor != null
+                ? indice.subMap(prefijo + cursor[1], false, collection + '0', false)
+                : indice.subMap(prefijo, true, collection + '0', false);
+
+            List<DocumentPage.Entry> pagina = new ArrayList<>(Math.min(query.getLimite(), 1024));
+            for (Map.Entry<String, Ubicacion> entrada : rango.entrySet()) {
+                Map<String, Object> documento = leer(entrada.getValue());
+                if (query.enRango(documento)) {
+                    String id = entrada.getKey().substring(prefijo.length());
+                    pagina.add(new DocumentPage.Entry(id, documento));
+                    if (pagina.size() == query.getLimite()) {
+                        return CompletableFuture.completedFuture(new DocumentPage(pagina, DocumentPage.cursor("", id)));
+                    }
+                }
+            }
+            return CompletableFuture.completedFuture(new DocumentPage(pagina, null));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Map<String, Object> leer(Ubicacion ubicacion) throws IOException {
+        byte[] documento = new byte[ubicacion.largoDocumento];
+        ubicacion.segmento.buffer.get(ubicacion.posicionDocumento, documento, 0, documento.length);
+        return objectMapper.readValue(documento, TIPO_DOCUMENTO);
+    }
+
+    /**
+     * Número de documentos vigentes en el índice.
+     */
+    public int size() {
+        return indice.size();
+    }
+
+    @Override
+    public void close() {
+        mantenimiento.shutdown();
+        try {
+            mantenimiento.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            sincronizar();
+            for (Segmento segmento : segmentos) {
+                segmento.cerrar();
+            }
+        }
+    }
+
+    // Agrega un registro al segmento activo y actualiza el índice
+    private synchronized void escribir(String collection, String id, byte[] documento) {
+        byte[] coleccionBytes = collection.getBytes(StandardCharsets.UTF_8);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        int largoCuerpo = 2 + coleccionBytes.length + 2 + idBytes.length + documento.length;
+        int largoRegistro = CABECERA + largoCuerpo;
+        if (largoRegistro > tamanoSegmento) {
+            throw new IllegalArgumentException("El documento no cabe en un segmento: " + largoRegistro + " bytes");
+        }
+        if (activo.posicion + largoRegistro > tamanoSegmento) {
+            rotar();
+        }
+
+        MappedByteBuffer buffer = activo.buffer;
+        int inicio = activo.posicion;
+        int cuerpo = inicio + CABECERA;
+        buffer.putShort(cuerpo, (short) coleccionBytes.length);
+        buffer.put(cuerpo + 2, coleccionBytes);
+        buffer.putShort(cuerpo + 2 + coleccionBytes.length, (short) idBytes.length);
+        int posicionDocumento = cuerpo + 4 + coleccionBytes.length + idBytes.length;
+        buffer.put(cuerpo + 4 + coleccionBytes.length, idBytes);
+        buffer.put(posicionDocumento, documento);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(cuerpo, largoCuerpo));
+        buffer.putInt(inicio + 4, (int) crc.getValue());
+        // El largo se escribe al final: un registro sin largo no existe para la recuperación
+        buffer.putInt(inicio, largoCuerpo);
+
+        activo.posicion += largoRegistro;
+        registrar(clave(collection, id), new Ubicacion(activo, largoRegistro, posicionDocumento, documento.length));
+    }
+
+    private void registrar(String clave, Ubicacion nueva) {
+        nueva.segmento.vivos.addAndGet(nueva.largoRegistro);
+        Ubicacion anterior = indice.put(clave, nueva);
+        if (anterior != null) {
+            anterior.segmento.vivos.addAndGet(-anterior.largoRegistro);
+        }
+    }
+
+    // Cierra el segmento activo y abre el siguiente
+    private void rotar() {
+        activo.buffer.force();
+        activo = abrirSegmento(activo.numero + 1);
+        segmentos.add(activo);
+    }
+
+    // Reconstruye el índice a partir de los segmentos existentes
+    private void recuperar() throws IOException {
+        List<Path> archivos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            archivos = listado
+                .filter(p -> p.getFileName().toString().matches("segment-\\d+\\.log"))
+                .sorted()
+                .toList();
+        }
+
+        for (Path archivo : archivos) {
+            String nombre = archivo.getFileName().toString();
+            Segmento segmento = abrirSegmento(Integer.parseInt(nombre.substring(8, nombre.length() - 4)));
+            segmentos.add(segmento);
+            leerRegistros(segmento);
+        }
+
+        if (segmentos.isEmpty()) {
+            segmentos.add(abrirSegmento(1));
+        }
+        activo = segmentos.get(segmentos.size() - 1);
+    }
+
+    // Recorre los registros válidos de un segmento, indexándolos, y deja la posición al final
+    private void leerRegistros(Segmento segmento) {
+        MappedByteBuffer buffer = segmento.buffer;
+        int posicion = 0;
+        while (posicion + CABECERA <= tamanoSegmento) {
+            int largoCuerpo = buffer.getInt(posicion);
+            if (largoCuerpo <= 0 || posicion + CABECERA + largoCuerpo > tamanoSegmento) {
+                break;
+            }
+            int cuerpo = posicion + CABECERA;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(cuerpo, largoCuerpo));
+            if ((int) crc.getValue() != buffer.getInt(posicion + 4)) {
+                break;
+            }
+
+            int largoColeccion = buffer.getShort(cuerpo);
+            String collection = leerTexto(buffer, cuerpo + 2, largoColeccion);
+            int largoId = buffer.getShort(cuerpo + 2 + largoColeccion);
+            String id = leerTexto(buffer, cuerpo + 4 + largoColeccion, largoId);
+            int posicionDocumento = cuerpo + 4 + largoColeccion + largoId;
+            int largoDocumento = largoCuerpo - 4 - largoColeccion - largoId;
+
+            int largoRegistro = CABECERA + largoCuerpo;
+            registrar(clave(collection, id), new Ubicacion(segmento, largoRegistro, posicionDocumento, largoDocumento));
+            posicion += largoRegistro;
+        }
+        segmento.posicion = posicion;
+    }
+
+    // Copia los registros vigentes de los segmentos cerrados con pocos datos vigentes y borra el archivo
+    void compactar() {
+        for (Segmento segmento : segmentos) {
+            if (segmento == activo || segmento.posicion == 0
+                || segmento.vivos.get() >= segmento.posicion * umbralCompactacion) {
+                continue;
+            }
+            try {
+                compactar(segmento);
+            } catch (RuntimeException e) {
+                log.atError().addKeyValue("file", segmento.archivo).setCause(e).log("Error al compactar");
+            }
+        }
+    }
+
+    private void compactar(Segmento segmento) {
+        List<Map.Entry<String, Ubicacion>> vigentes = new ArrayList<>();
+        indice.forEach((clave, ubicacion) -> {
+            if (ubicacion.segmento == segmento) {
+                vigentes.add(Map.entry(clave, ubicacion));
+            }
+        });
+
+        for (Map.Entry<String, Ubicacion> entrada : vigentes) {
+            Ubicacion ubicacion = entrada.getValue();
+            byte[] documento = new byte[ubicacion.largoDocumento];
+            segmento.buffer.get(ubicacion.posicionDocumento, documento, 0, documento.length);
+            String clave = entrada.getKey();
+            int separador = clave.indexOf('/');
+            synchronized (this) {
+                // Si entre tanto llegó una versión más nueva, esta copia ya no hace falta
+                if (indice.get(clave) == ubicacion) {
+                    escribir(clave.substring(0, separador), clave.substring(separador + 1), documento);
+                }
+            }
+        }
+
+        // Las copias quedan en disco antes de borrar el original. Se sincroniza fuera del candado para
+        // no detener a los escritores; si entre tanto se cambió de segmento, al cambiar ya se sincronizó
+        activo.buffer.force();
+        segmentos.remove(segmento);
+        segmento.cerrar();
+        try {
+            Files.deleteIfExists(segmento.archivo);
+        } catch (IOException e) {
+            // Si no se puede borrar, sus registros quedan ocultos por las copias más nuevas al recuperar
+            log.atWarn().addKeyValue("file", segmento.archivo).setCause(e).log("No se pudo borrar el segmento");
+        }
+    }
+
+    // Sin el candado de escritura: force() puede tardar y las escrituras siguen mientras tanto.
+    // Si justo se cambia de segmento, el anterior ya se sincronizó al cambiar.
+    private void sincronizar() {
+        Segmento segmento = activo;
+        if (segmento != null) {
+            segmento.buffer.force();
+        }
+    }
+
+    private Segmento abrirSegmento(int numero) {
+        Path archivo = directorio.resolve(String.format("segment-%06d.log", numero));
+        try (FileChannel canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segmento(numero, archivo, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] serializar(Map<String, Object> data) {
+        try {
+            return objectMapper.writeValueAsBytes(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String leerTexto(MappedByteBuffer buffer, int posicion, int largo) {
+        byte[] bytes = new byte[largo];
+        buffer.get(posicion, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String clave(String collection, String id) {
+        return collection + '/' + id;
+    }
+
+    // Un archivo de segmento mapeado en memoria
+    private static final class Segmento {
+        private final int numero;
+        private final Path archivo;
+        private final MappedByteBuffer buffer;
+        // Bytes de registros que siguen siendo la última versión de su documento
+        private final AtomicLong vivos = new AtomicLong();
+        private int posicion;
+
+        Segmento(int numero, Path archivo, MappedByteBuffer buffer) {
+            this.numero = numero;
+            this.archivo = archivo;
+            this.buffer = buffer;
+        }
+
+        void cerrar() {
+            buffer.force();
+        }
+    }
+
+    // Dónde está la última versión de un documento
+    private static final class Ubicacion {
+        private final Segmento segmento;
+        private final int largoRegistro;
+        private final int posicionDocumento;
+        private final int largoDocumento;
+
+        Ubicacion(Segmento segmento, int largoRegistro, int posicionDocumento, int largoDocumento) {
+            this.segmento = segmento;
+            this.largoRegistro = largoRegistro;
+            this.posicionDocumento = posicionDocumento;
+            this.largoDocumento = largoDocumento;
+        }
+    }
+}
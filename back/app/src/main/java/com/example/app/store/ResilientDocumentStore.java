@@ -0,0 +1,295 @@
+package com.example.app.store;
+
+import static com.example.app.util.Errores.causa;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Envoltorio que pone un presupuesto de latencia a las lecturas de otro almacén.
+ *
+ * Cada `get` tiene como máximo `presupuestoMs`. Si el primer intento tarda más que el
+ * percentil configurado de las lecturas recientes, se envía una sola lectura duplicada
+ * (hedge) y gana la primera que responda. Un cortocircuito cuenta los resultados: con
+ * fallos sostenidos se abre y, mientras está abierto, las lecturas no llegan al almacén.
+ *
+ * Cuando una lectura falla o el circuito está abierto se devuelve el último valor leído
+ * con éxito de ese documento, si se conoce; si no, el error (RejectedExecutionException
+ * con el circuito abierto). Las escrituras pasan directo y descartan ese último valor.
+ *
+ * `getAll` tiene el mismo presupuesto y cuenta para el mismo cortocircuito, pero no se
+ * duplica; si falla, se responde con los últimos valores solo si se conocen todos.
+ */
+public class ResilientDocumentStore implements DocumentStore {
+
+    // Cada cuántas lecturas se recalcula el umbral del hedge
+    private static final int RECALCULAR_CADA = 128;
+
+    private final DocumentStore destino;
+    private final long presupuestoMs;
+    private final double percentilHedge;
+    private final long hedgeMinimoMs;
+    private final CircuitBreaker circuito;
+
+    // Último valor leído con éxito de cada documento, para responder mientras el almacén falla
+    private final Cache<String, Map<String, Object>> ultimosValidos;
+
+    // Latencias recientes (ms) en un anillo; el umbral se recalcula a partir de ellas
+    private final long[] latencias;
+    private int posicion;
+    private int muestras;
+    private volatile long umbralHedgeMs;
+
+    private final LongAdder duplicadas;
+    private final LongAdder respaldos;
+    private final LongAdder rechazadas;
+
+    public ResilientDocumentStore(DocumentStore destino, Opciones opciones, MetricsRegistry metrics) {
+        if (opciones.presupuestoMs <= 0 || opciones.percentilHedge <= 0 || opciones.percentilHedge >= 1) {
+            throw new IllegalArgumentException("Se requiere presupuesto > 0 y 0 < percentil < 1");
+        }
+        this.destino = destino;
+        this.presupuestoMs = opciones.presupuestoMs;
+        this.percentilHedge = opciones.percentilHedge;
+        this.hedgeMinimoMs = opciones.hedgeMinimoMs;
+        this.circuito = new CircuitBreaker("document_store", opciones.ventana, opciones.tasaFallos,
+            opciones.abiertoMs, System::currentTimeMillis, metrics);
+        this.ultimosValidos = Caffeine.newBuilder()
+            .maximumSize(opciones.maxUltimosValidos)
+            .build();
+        this.latencias = new long[1024];
+        // Sin muestras todavía, el hedge sale a mitad del presupuesto
+        this.umbralHedgeMs = Math.max(hedgeMinimoMs, presupuestoMs / 2);
+
+        String ayuda = "Lecturas del almacén resueltas con hedge, con el último valor válido o rechazadas";
+        this.duplicadas = metrics.counter("resilient_reads_total", ayuda, "result", "hedged");
+        this.respaldos = metrics.counter("resilient_reads_total", ayuda, "result", "fallback");
+        this.rechazadas = metrics.counter("resilient_reads_total", ayuda, "result", "rejected");
+        metrics.gauge("resilient_read_hedge_threshold_seconds", "Espera antes de enviar la lectura duplicada",
+            () -> umbralHedgeMs / 1000.0);
+    }
+
+    public CircuitBreaker.Estado estadoCircuito() {
+        return circuito.estado();
+    }
+
+    @Override
+    public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+        if (id != null) {
+            ultimosValidos.invalidate(clave(collection, id));
+        }
+        return destino.save(collection, id, data);
+    }
+
+    @Override
+    public CompletableFuture<String> saveAll(List<? extends DocumentWrite> writes) {
+        for (DocumentWrite write : writes) {
+            if (write.getId() != null) {
+                ultimosValidos.invalidate(clave(write.getCollection(), write.getId()));
+            }
+        }
+        return destino.saveAll(writes);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+        String clave = clave(collection, id);
+        if (!circuito.permitir()) {
+            return ultimoValido(clave, new RejectedExecutionException("Circuito abierto para el almacén de documentos"));
+        }
+
+        long inicio = System.nanoTime();
+        CompletableFuture<Map<String, Object>> resultado = new CompletableFuture<>();
+        AtomicInteger enCurso = new AtomicInteger(1);
+        intentar(collection, id, resultado, enCurso);
+
+        long espera = umbralHedgeMs;
+        if (espera < presupuestoMs) {
+            CompletableFuture.delayedExecutor(espera, TimeUnit.MILLISECONDS).execute(() -> {
+                if (!resultado.isDone()) {
+                    enCurso.incrementAndGet();
+                    duplicadas.increment();
+                    intentar(collection, id, resultado, enCurso);
+                }
+            });
+        }
+
+        return resultado.orTimeout(presupuestoMs, TimeUnit.MILLISECONDS)
+            .handle((documento, error) -> {
+                if (error == null) {
+                    circuito.exito();
+                    registrarLatencia(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                    if (documento != null) {
+                        ultimosValidos.put(clave, documento);
+                    } else {
+                        ultimosValidos.invalidate(clave);
+                    }
+                    return CompletableFuture.completedFuture(documento);
+                }
+                circuito.fallo();
+                return ultimoValido(clave, error);
+            })
+            .thenCompose(futuro -> futuro);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Map<String, Object>>> getAll(String collection, Collection<String> ids) {
+        if (!circuito.permitir()) {
+            return ultimosValidos(collection, ids, new RejectedExecutionException("Circuito abierto para el almacén de documentos"));
+        }
+
+        CompletableFuture<Map<String, Map<String, Object>>> lectura;
+        try {
+            lectura = destino.getAll(collection, ids);
+        } catch (RuntimeException e) {
+            lectura = CompletableFuture.failedFuture(e);
+        }
+        return lectura.orTimeout(presupuestoMs, TimeUnit.MILLISECONDS)
+            .handle((documentos, error) -> {
+                if (error == null) {
+                    circuito.exito();
+                    for (String id : ids) {
+                        Map<String, Object> documento = documentos.get(id);
+                        if (documento != null) {
+                            ultimosValidos.put(clave(collection, id), documento);
+                        } else {
+                            ultimosValidos.invalidate(clave(collection, id));
+                        }
+                    }
+                    return CompletableFuture.completedFuture(documentos);
+                }
+                circuito.fallo();
+                return ultimosValidos(collection, ids, error);
+            })
+            .thenCompose(futuro -> futuro);
+    }
+
+    @Override
+    public CompletableFuture<DocumentPage> query(String collection, DocumentQuery query) {
+        return destino.query(collection, query);
+    }
+
+    @Override
+    public Runnable listen(String collection, String id, Consumer<DocumentPage.Entry> oyente,
+                           Consumer<Throwable> alFallar) {
+        return destino.listen(collection, id, oyente, alFallar);
+    }
+
+    @Override
+    public CompletableFuture<Void> ready() {
+        return destino.ready();
+    }
+
+    @Override
+    public void close() {
+        destino.close();
+    }
+
+    // Un intento contra el almacén: el primero que responde completa el resultado; el error solo
+    // se propaga cuando fallaron todos los intentos enviados
+    private void intentar(String collection, String id, CompletableFuture<Map<String, Object>> resultado,
+                          AtomicInteger enCurso) {
+        CompletableFuture<Map<String, Object>> intento;
+        try {
+            intento = destino.get(collection, id);
+        } catch (RuntimeException e) {
+            intento = CompletableFuture.failedFuture(e);
+        }
+        intento.whenComplete((documento, error) -> {
+            if (error == null) {
+                resultado.complete(documento);
+            } else if (enCurso.decrementAndGet() == 0) {
+                resultado.completeExceptionally(error);
+            }
+        });
+    }
+
+    private CompletableFuture<Map<String, Object>> ultimoValido(String clave, Throwable error) {
+        Map<String, Object> documento = ultimosValidos.getIfPresent(clave);
+        if (documento != null) {
+            respaldos.increment();
+            return CompletableFuture.completedFuture(new LinkedHashMap<>(documento));
+        }
+        rechazadas.increment();
+        return CompletableFuture.failedFuture(causa(error));
+    }
+
+    private CompletableFuture<Map<String, Map<String, Object>>> ultimosValidos(String collection, Collection<String> ids,
+                                                                           Throwable error) {
+        Map<String, Map<String, Object>> documentos = new LinkedHashMap<>();
+        for (String id : ids) {
+            Map<String, Object> documento = ultimosValidos.getIfPresent(clave(collection, id));
+            if (documento == null) {
+                rechazadas.increment();
+                return CompletableFuture.failedFuture(causa(error));
+            }
+            documentos.put(id, new LinkedHashMap<>(documento));
+        }
+        respaldos.increment();
+        return CompletableFuture.completedFuture(documentos);
+    }
+
+    private synchronized void registrarLatencia(long ms) {
+        latencias[posicion] = ms;
+        posicion = (posicion + 1) % latencias.length;
+        muestras++;
+        if (muestras % RECALCULAR_CADA == 0) {
+            long[] ordenadas = Arrays.copyOf(latencias, Math.min(muestras, latencias.length));
+            Arrays.sort(ordenadas);
+            long percentil = ordenadas[(int) Math.min(ordenadas.length - 1, (long) (ordenadas.length * percentilHedge))];
+            umbralHedgeMs = Math.max(hedgeMinimoMs, percentil);
+        }
+    }
+
+    private static String clave(String collection, String id) {
+        return collection + '/' + id;
+    }
+
+    /**
+     * Configuración del envoltorio; los valores por omisión son los de application.properties.
+     */
+    public static final class Opciones {
+        private final boolean habilitado;
+        private final long presupuestoMs;
+        private final double percentilHedge;
+        private final long hedgeMinimoMs;
+        private final int ventana;
+        private final double tasaFallos;
+        private final long abiertoMs;
+        private final long maxUltimosValidos;
+
+        public Opciones(boolean habilitado, long presupuestoMs, double percentilHedge, long hedgeMinimoMs,
+                        int ventana, double tasaFallos, Duration abierto, long maxUltimosValidos) {
+            this.habilitado = habilitado;
+            this.presupuestoMs = presupuestoMs;
+            this.percentilHedge = percentilHedge;
+            this.hedgeMinimoMs = hedgeMinimoMs;
+            this.ventana = ventana;
+            this.tasaFallos = tasaFallos;
+            this.abiertoMs = abierto.toMillis();
+            this.maxUltimosValidos = maxUltimosValidos;
+        }
+
+        public static Opciones porOmision() {
+            return new Opciones(true, 2_000, 0.95, 20, 100, 0.5, Duration.ofSeconds(10), 10_000);
+        }
+
+        public boolean isHabilitado() {
+            return habilitado;
+        }
+    }
+}
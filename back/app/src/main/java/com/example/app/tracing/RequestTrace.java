@@ -0,0 +1,137 @@
+package com.example.app.tracing;
+
+import java.util.UUID;
+
+/**
+ * Traza de una solicitud muestreada: las etapas por las que pasó (deserialización, lógica
+ * del controlador, llamadas a FirebaseService, serialización...) con su inicio y duración
+ * en nanosegundos, relativos al inicio de la solicitud.
+ *
+ * La traza de la solicitud en curso se obtiene con `actual()`, que es nulo si la solicitud
+ * no fue muestreada: el costo para las demás es leer un ThreadLocal. Como las etapas pueden
+ * terminar en otros hilos (por ejemplo, cuando se completa un CompletableFuture), quien
+ * inicia una etapa guarda la traza y el índice que devuelve `iniciar`.
+ */
+public final class RequestTrace {
+
+    private static final ThreadLocal<RequestTrace> ACTUAL = new ThreadLocal<>();
+
+    // Etapas como máximo por traza; las siguientes se ignoran
+    static final int MAX_ETAPAS = 32;
+
+    private final String id = UUID.randomUUID().toString();
+    private final String metodo;
+    private final String ruta;
+    private final long inicioEpochMs = System.currentTimeMillis();
+    private final long inicioNanos = System.nanoTime();
+
+    private final String[] nombres = new String[MAX_ETAPAS];
+    private final long[] inicios = new long[MAX_ETAPAS];
+    private final long[] duraciones = new long[MAX_ETAPAS];
+    private int etapas;
+    private long finNanos;
+    private int estado;
+
+    RequestTrace(String metodo, String ruta) {
+        this.metodo = metodo;
+        this.ruta = ruta;
+    }
+
+    /**
+     * Traza de la solicitud que atiende este hilo, o null si no se muestreó.
+     */
+    public static RequestTrace actual() {
+        return ACTUAL.get();
+    }
+
+    static void establecer(RequestTrace traza) {
+        ACTUAL.set(traza);
+    }
+
+    static void limpiar() {
+        ACTUAL.remove();
+    }
+
+    /**
+     * Inicia una etapa y devuelve su índice para `terminar`, o -1 si ya no hay lugar.
+     */
+    public synchronized int iniciar(String nombre) {
+        if (etapas == MAX_ETAPAS) {
+            return -1;
+        }
+        nombres[etapas] = nombre;
+        inicios[etapas] = System.nanoTime() - inicioNanos;
+        return etapas++;
+    }
+
+    public synchronized void terminar(int etapa) {
+        cerrar(etapa, System.nanoTime() - inicioNanos);
+    }
+
+    /**
+     * Termina la última etapa abierta con ese nombre, si hay una.
+     */
+    public synchronized void terminar(String nombre) {
+        for (int i = etapas - 1; i >= 0; i--) {
+            if (duraciones[i] == 0 && nombres[i].equals(nombre)) {
+                terminar(i);
+                return;
+            }
+        }
+    }
+
+    // Cierra la traza con el estado HTTP; las etapas que sigan abiertas terminan ahora
+    synchronized void finalizar(int estado) {
+        this.estado = estado;
+        this.finNanos = System.nanoTime() - inicioNanos;
+        for (int i = 0; i < etapas; i++) {
+            cerrar(i, finNanos);
+        }
+    }
+
+    private void cerrar(int etapa, long finNanos) {
+        if (etapa >= 0 && duraciones[etapa] == 0) {
+            duraciones[etapa] = Math.max(1, finNanos - inicios[etapa]);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    String getMetodo() {
+        return metodo;
+    }
+
+    String getRuta() {
+        return ruta;
+    }
+
+    long getInicioEpochMs() {
+        return inicioEpochMs;
+    }
+
+    synchronized long getDuracionNanos() {
+        return finNanos;
+    }
+
+    synchronized int getEstado() {
+        return estado;
+    }
+
+    synchronized int getEtapas() {
+        return etapas;
+    }
+
+    synchronized String getNombre(int etapa) {
+        return nombres[etapa];
+    }
+
+    synchronized long getInicioNanos(int etapa) {
+        return inicios[etapa];
+    }
+
+    synchronized long getDuracionNanos(int etapa) {
+        return duraciones[etapa];
+    }
+}
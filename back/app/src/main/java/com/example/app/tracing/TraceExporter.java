@@ -0,0 +1,170 @@
+package com.example.app.tracing;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Escribe las trazas terminadas en un archivo NDJSON local, una por línea.
+ *
+ * Quien termina una solicitud solo encola la traza (sin esperar); un hilo aparte la
+ * serializa y la escribe. Si la cola está llena la traza se descarta y se cuenta en
+ * tracing_dropped_total: exportar nunca demora una solicitud.
+ *
+ * Cuando el archivo llega a `max-file-mb` se renombra a "<archivo>.1" (reemplazando el
+ * anterior) y se empieza uno nuevo, así que en disco nunca hay más de dos archivos.
+ */
+@Component
+public class TraceExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(TraceExporter.class);
+
+    private final Path archivo;
+    private final Path anterior;
+    private final long maxBytes;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<RequestTrace> pendientes;
+    private final Thread escritor;
+    private volatile boolean cerrado;
+
+    private final LongAdder exportadas;
+    private final LongAdder descartadas;
+
+    public TraceExporter(@Value("${app.tracing.file:traces.ndjson}") String archivo,
+                         @Value("${app.tracing.queue-size:1024}") int capacidad,
+                         @Value("${app.tracing.max-file-mb:64}") long maxMb,
+                         ObjectMapper objectMapper,
+                         MetricsRegistry metrics) {
+        this.archivo = Path.of(archivo);
+        this.anterior = Path.of(archivo + ".1");
+        this.maxBytes = Math.max(1, maxMb) * 1024 * 1024;
+        this.objectMapper = objectMapper;
+        this.pendientes = new ArrayBlockingQueue<>(capacidad);
+        this.exportadas = metrics.counter("tracing_exported_total", "Trazas de solicitudes escritas en el archivo");
+        this.descartadas = metrics.counter("tracing_dropped_total", "Trazas descartadas por cola llena o error de escritura");
+
+        this.escritor = new Thread(this::escribir, "trazas-exportador");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * Encola una traza terminada; si no hay lugar se descarta.
+     */
+    public void exportar(RequestTrace traza) {
+        if (!pendientes.offer(traza)) {
+            descartadas.increment();
+        }
+    }
+
+    private void escribir() {
+        try {
+            while (!cerrado || !pendientes.isEmpty()) {
+                if (Files.exists(archivo) && Files.size(archivo) >= maxBytes) {
+                    Files.move(archivo, anterior, StandardCopyOption.REPLACE_EXISTING);
+                }
+                escribirHastaLlenar(Files.exists(archivo) ? Files.size(archivo) : 0);
+            }
+        } catch (IOException e) {
+            log.atError().addKeyValue("file", archivo).setCause(e).log("No se pueden escribir las trazas");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Si el escritor terminó por un error, lo que quede se descarta
+        descartadas.add(pendientes.size());
+        pendientes.clear();
+    }
+
+    // Agrega trazas al archivo hasta que llega al tamaño máximo o se cierra el exportador
+    private void escribirHastaLlenar(long tamanoInicial) throws IOException, InterruptedException {
+        try (Contador salida = new Contador(new BufferedOutputStream(Files.newOutputStream(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)), tamanoInicial);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(salida, JsonEncoding.UTF8)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+            while ((!cerrado || !pendientes.isEmpty()) && salida.escritos + generator.getOutputBuffered() < maxBytes) {
+                RequestTrace traza = pendientes.poll(1, TimeUnit.SECONDS);
+                if (traza == null) {
+                    continue;
+                }
+                escribir(generator, traza);
+                exportadas.increment();
+                // Se baja al archivo cuando no queda nada por escribir
+                if (pendientes.isEmpty()) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+
+    private static void escribir(JsonGenerator generator, RequestTrace traza) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("traceId", traza.getId());
+        generator.writeStringField("method", traza.getMetodo());
+        generator.writeStringField("path", traza.getRuta());
+        generator.writeNumberField("status", traza.getEstado());
+        generator.writeNumberField("startEpochMs", traza.getInicioEpochMs());
+        generator.writeNumberField("durationNanos", traza.getDuracionNanos());
+        generator.writeArrayFieldStart("stages");
+        for (int i = 0; i < traza.getEtapas(); i++) {
+            generator.writeStartObject();
+            generator.writeStringField("name", traza.getNombre(i));
+            generator.writeNumberField("startNanos", traza.getInicioNanos(i));
+            generator.writeNumberField("durationNanos", traza.getDuracionNanos(i));
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    // Cuenta los bytes que llegan al archivo
+    private static final class Contador extends FilterOutputStream {
+        private long escritos;
+
+        Contador(OutputStream destino, long escritos) {
+            super(destino);
+            this.escritos = escritos;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            escritos++;
+        }
+
+        @Override
+        public void write(byte[] b, int desde, int largo) throws IOException {
+            out.write(b, desde, largo);
+            escritos += largo;
+        }
+    }
+
+    // Al apagar se escriben las trazas que siguen en la cola
+    @PreDestroy
+    public void close() throws InterruptedException {
+        cerrado = true;
+        escritor.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
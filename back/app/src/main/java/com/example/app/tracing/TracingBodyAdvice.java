@@ -0,0 +1,79 @@
+package com.example.app.tracing;
+
+import java.lang.reflect.Type;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marca las etapas "deserialization" (lectura del cuerpo de la solicitud) y "serialization"
+ * (escritura de la respuesta, hasta que se completa) de las solicitudes trazadas. En las
+ * demás `supports` devuelve false y Spring no vuelve a llamar a este consejo.
+ */
+@ControllerAdvice
+public class TracingBodyAdvice implements RequestBodyAdvice, ResponseBodyAdvice<Object> {
+
+    static final String DESERIALIZACION = "deserialization";
+    static final String SERIALIZACION = "serialization";
+
+    @Override
+    public boolean supports(MethodParameter parametro, Type tipo, Class<? extends HttpMessageConverter<?>> conversor) {
+        return RequestTrace.actual() != null;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage mensaje, MethodParameter parametro, Type tipo,
+                                           Class<? extends HttpMessageConverter<?>> conversor) {
+        RequestTrace traza = RequestTrace.actual();
+        if (traza != null) {
+            traza.iniciar(DESERIALIZACION);
+        }
+        return mensaje;
+    }
+
+    @Override
+    public Object afterBodyRead(Object cuerpo, HttpInputMessage mensaje, MethodParameter parametro, Type tipo,
+                                Class<? extends HttpMessageConverter<?>> conversor) {
+        terminar(DESERIALIZACION);
+        return cuerpo;
+    }
+
+    @Override
+    public Object handleEmptyBody(Object cuerpo, HttpInputMessage mensaje, MethodParameter parametro, Type tipo,
+                                  Class<? extends HttpMessageConverter<?>> conversor) {
+        terminar(DESERIALIZACION);
+        return cuerpo;
+    }
+
+    @Override
+    public boolean supports(MethodParameter retorno, Class<? extends HttpMessageConverter<?>> conversor) {
+        return RequestTrace.actual() != null;
+    }
+
+    // La serialización termina cuando se cierra la traza, al completarse la respuesta
+    @Override
+    public Object beforeBodyWrite(Object cuerpo, MethodParameter retorno, MediaType tipo,
+                                  Class<? extends HttpMessageConverter<?>> conversor,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTrace traza = RequestTrace.actual();
+        if (traza != null) {
+            traza.terminar(TracingInterceptor.CONTROLADOR);
+            traza.iniciar(SERIALIZACION);
+        }
+        return cuerpo;
+    }
+
+    private static void terminar(String etapa) {
+        RequestTrace traza = RequestTrace.actual();
+        if (traza != null) {
+            traza.terminar(etapa);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.app.tracing;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.app.admission.TokenBucket;
+import com.example.app.metrics.MetricsRegistry;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Decide qué solicitudes se trazan y abre y cierra su traza.
+ *
+ * Se muestrea una proporción `sample-rate` de las solicitudes, más las que traen el
+ * encabezado `force-header`. Como cualquier cliente puede mandar ese encabezado, las trazas
+ * forzadas tienen su propia cubeta de fichas (`forced-per-second`, con ráfagas de
+ * `forced-burst`); pasado ese ritmo el encabezado se ignora. En las muestreadas la traza
+ * queda disponible con `RequestTrace.actual()` en cada despacho (también el asíncrono) y
+ * su ID va en el MDC como traceId, así que aparece en los logs de esa solicitud. Al
+ * completarse la respuesta se entrega a `TraceExporter`. Las demás solicitudes solo pagan
+ * el sorteo.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TracingFilter extends OncePerRequestFilter {
+
+    static final String ATRIBUTO = TracingFilter.class.getName() + ".traza";
+    private static final String MDC_TRAZA = "traceId";
+
+    private final double tasa;
+    private final String headerForzar;
+    private final TokenBucket forzadas;
+    private final TraceExporter exporter;
+    private final LongAdder muestreadas;
+    private final LongAdder forzadasRechazadas;
+
+    public TracingFilter(@Value("${app.tracing.sample-rate:0.01}") double tasa,
+                         @Value("${app.tracing.force-header:X-Trace}") String headerForzar,
+                         @Value("${app.tracing.forced-per-second:1}") double forzadasPorSegundo,
+                         @Value("${app.tracing.forced-burst:5}") int rafagaForzadas,
+                         TraceExporter exporter,
+                         MetricsRegistry metrics) {
+        this.tasa = tasa;
+        // Sin ritmo para las forzadas el encabezado no se atiende
+        this.headerForzar = headerForzar.isBlank() || forzadasPorSegundo <= 0 ? null : headerForzar;
+        this.forzadas = this.headerForzar != null
+            ? new TokenBucket(forzadasPorSegundo, Math.max(1, rafagaForzadas), System.nanoTime())
+            : null;
+        this.exporter = exporter;
+        this.muestreadas = metrics.counter("tracing_sampled_total", "Solicitudes muestreadas para trazar");
+        this.forzadasRechazadas = metrics.counter("tracing_forced_rejected_total",
+            "Solicitudes con el encabezado para forzar la traza que no se trazaron por superar el ritmo");
+    }
+
+    // También se ejecuta en el despacho asíncrono, para dejar la traza disponible en ese hilo
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTrace traza = (RequestTrace) request.getAttribute(ATRIBUTO);
+        if (traza == null && !isAsyncDispatch(request) && muestrear(request)) {
+            traza = new RequestTrace(request.getMethod(), request.getRequestURI());
+            request.setAttribute(ATRIBUTO, traza);
+            muestreadas.increment();
+        }
+        if (traza == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        RequestTrace.establecer(traza);
+        MDC.put(MDC_TRAZA, traza.getId());
+        boolean asincrona = false;
+        try {
+            chain.doFilter(request, response);
+            asincrona = request.isAsyncStarted();
+            // La traza se cierra cuando la solicitud asíncrona termina de verdad
+            if (asincrona && !isAsyncDispatch(request)) {
+                request.getAsyncContext().addListener(new FinAsincrono(traza));
+            }
+        } finally {
+            RequestTrace.limpiar();
+            MDC.remove(MDC_TRAZA);
+            if (!asincrona && !isAsyncDispatch(request)) {
+                traza.finalizar(response.getStatus());
+                exporter.exportar(traza);
+            }
+        }
+    }
+
+    private boolean muestrear(HttpServletRequest request) {
+        if (tasa > 0 && ThreadLocalRandom.current().nextDouble() < tasa) {
+            return true;
+        }
+        if (headerForzar == null || request.getHeader(headerForzar) == null) {
+            return false;
+        }
+        if (forzadas.intentar(System.nanoTime()) == 0) {
+            return true;
+        }
+        forzadasRechazadas.increment();
+        return false;
+    }
+
+    private final class FinAsincrono implements AsyncListener {
+        private final RequestTrace traza;
+
+        FinAsincrono(RequestTrace traza) {
+            this.traza = traza;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            traza.finalizar(((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+            exporter.exportar(traza);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
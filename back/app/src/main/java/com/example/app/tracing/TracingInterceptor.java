@@ -0,0 +1,46 @@
+package com.example.app.tracing;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Marca la etapa "controller" de las solicitudes trazadas: desde que el controlador recibe
+ * la solicitud (incluye leer los argumentos) hasta que devuelve su resultado. Si devuelve un
+ * CompletableFuture, la etapa termina al devolverlo y lo que falta se ve en las etapas de
+ * FirebaseService y en "serialization".
+ */
+public class TracingInterceptor implements AsyncHandlerInterceptor {
+
+    static final String CONTROLADOR = "controller";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTrace traza = RequestTrace.actual();
+        if (traza != null && request.getDispatcherType() == DispatcherType.REQUEST) {
+            traza.iniciar(CONTROLADOR);
+        }
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        terminar();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        terminar();
+    }
+
+    private static void terminar() {
+        RequestTrace traza = RequestTrace.actual();
+        if (traza != null) {
+            traza.terminar(CONTROLADOR);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.app.util;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Utilidades para los errores que llegan a través de CompletableFuture.
+ */
+public final class Errores {
+
+    private Errores() {
+    }
+
+    /**
+     * Quita los envoltorios que agregan CompletableFuture (CompletionException) y
+     * Future.get (ExecutionException) y devuelve el error original.
+     */
+    public static Throwable causa(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+}
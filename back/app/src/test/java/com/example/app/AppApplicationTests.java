@@ -3,7 +3,8 @@ package com.example.app;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Las pruebas usan el almacén en memoria para no depender de credenciales de Firebase
+@SpringBootTest(properties = "app.store.type=memory")
 class AppApplicationTests {
 
 	@Test
@@ -0,0 +1,55 @@
+package com.example.app.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.app.metrics.MetricsRegistry;
+
+class AdmissionControlFilterTest {
+
+	// Sin límite por omisión; /firebase/login admite una sola solicitud seguida por cliente
+	private static AdmissionControlFilter filtro() {
+		return new AdmissionControlFilter(true, "*:0/0/0,login:1/1/0", "", 1000, 300, new MetricsRegistry());
+	}
+
+	private static int enviar(AdmissionControlFilter filtro, String uri) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filtro.doFilter(request, response, new MockFilterChain());
+		return response.getStatus();
+	}
+
+	@Test
+	void aplicaElLimiteDelEndpoint() throws Exception {
+		AdmissionControlFilter filtro = filtro();
+
+		assertEquals(200, enviar(filtro, "/firebase/login"));
+		assertEquals(429, enviar(filtro, "/firebase/login"));
+		// Otro endpoint usa el valor por omisión, que aquí no limita
+		assertEquals(200, enviar(filtro, "/firebase/user/1"));
+		assertEquals(200, enviar(filtro, "/firebase/user/1"));
+	}
+
+	@Test
+	void losParametrosDeSegmentoNoEvitanElLimite() throws Exception {
+		for (String uri : new String[] {"/firebase;x/login", "/firebase/login;x", "/firebase;a=1/login;b=2/"}) {
+			AdmissionControlFilter filtro = filtro();
+			assertEquals(200, enviar(filtro, uri), uri);
+			assertEquals(429, enviar(filtro, uri), uri);
+		}
+	}
+
+	@Test
+	void laCodificacionPorcentualNoEvitaElLimite() throws Exception {
+		AdmissionControlFilter filtro = filtro();
+
+		assertEquals(200, enviar(filtro, "/firebase/login"));
+		// Las dos llegan al mismo controlador que /firebase/login y comparten su cubeta
+		assertEquals(429, enviar(filtro, "/%66irebase/login"));
+		assertEquals(429, enviar(filtro, "/firebase/%6Cogin"));
+	}
+}
@@ -0,0 +1,52 @@
+package com.example.app.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// La hora se pasa a mano, así que las pruebas no dependen del reloj
+class TokenBucketTest {
+
+	private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void admiteLaRafagaYLuegoRechazaConLaEsperaExacta() {
+		TokenBucket cubeta = new TokenBucket(10, 3, 0);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, cubeta.intentar(0));
+		}
+		// La siguiente ficha llega en 1/10 de segundo
+		assertEquals(SEGUNDO / 10, cubeta.intentar(0));
+		assertEquals(0, cubeta.intentar(SEGUNDO / 10));
+		assertTrue(cubeta.intentar(SEGUNDO / 10) > 0);
+	}
+
+	@Test
+	void mantieneLaTasaPromedio() {
+		TokenBucket cubeta = new TokenBucket(100, 1, 0);
+		int admitidas = 0;
+		// Una solicitud por milisegundo durante un segundo: solo pasa una de cada diez
+		for (long t = 0; t < SEGUNDO; t += SEGUNDO / 1000) {
+			if (cubeta.intentar(t) == 0) {
+				admitidas++;
+			}
+		}
+		assertEquals(100, admitidas);
+	}
+
+	@Test
+	void unClienteInactivoRecuperaLaRafagaPeroNoMas() {
+		TokenBucket cubeta = new TokenBucket(1, 2, 0);
+		assertEquals(0, cubeta.intentar(0));
+		assertEquals(0, cubeta.intentar(0));
+
+		long despues = 60 * SEGUNDO;
+		assertEquals(0, cubeta.intentar(despues));
+		assertEquals(0, cubeta.intentar(despues));
+		assertTrue(cubeta.intentar(despues) > 0);
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.app.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.app.session.Session;
+import com.example.app.session.SessionStore;
+
+// Sin control de admisión: los límites de /import admiten muy pocas solicitudes seguidas
+@SpringBootTest(properties = {"app.store.type=memory", "firebase.admission.enabled=false"})
+@AutoConfigureMockMvc
+class FirebaseControllerTest {
+
+	private static final String NDJSON = "application/x-ndjson";
+
+	private static final String LINEA = "{\"id\":\"otro\",\"data\":{\"email\":\"x@y.z\"}}\n";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private SessionStore sessionStore;
+
+	@Test
+	void importarSinSesionResponde401() throws Exception {
+		mvc.perform(post("/firebase/import/logins").contentType(NDJSON).content(LINEA))
+			.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void importarConSesionDeOtroRolResponde403() throws Exception {
+		Session sesion = sessionStore.crear("usuario@email.com", null);
+
+		mvc.perform(post("/firebase/import/logins").contentType(NDJSON).content(LINEA)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + sesion.getToken()))
+			.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void importarConSesionDeAdministradorSeAcepta() throws Exception {
+		Session sesion = sessionStore.crear("admin@email.com", Session.ADMIN);
+
+		mvc.perform(post("/firebase/import/logins").contentType(NDJSON).content(LINEA)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + sesion.getToken()))
+			.andExpect(status().isOk());
+	}
+
+	@Test
+	void seguirTodaLaColeccionRequiereUnaSesionDeAdministrador() throws Exception {
+		mvc.perform(get("/firebase/stream/logins"))
+			.andExpect(status().isUnauthorized());
+
+		Session sesion = sessionStore.crear("usuario@email.com", null);
+		mvc.perform(get("/firebase/stream/logins").header(HttpHeaders.AUTHORIZATION, "Bearer " + sesion.getToken()))
+			.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void seguirUnDocumentoNoRequiereSesion() throws Exception {
+		mvc.perform(get("/firebase/stream/logins/abc"))
+			.andExpect(request().asyncStarted());
+	}
+}
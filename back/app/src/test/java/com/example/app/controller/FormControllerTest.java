@@ -0,0 +1,50 @@
+package com.example.app.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.app.session.SessionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = {"app.store.type=memory", "firebase.admission.enabled=false"})
+@AutoConfigureMockMvc
+class FormControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private SessionStore sessionStore;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void lasCredencialesDeDemostracionNoDanUnaSesionDeAdministrador() throws Exception {
+		String cuerpo = mvc.perform(post("/form/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"admin@email.com\",\"password\":\"admin123\"}"))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+		Map<?, ?> respuesta = objectMapper.readValue(cuerpo, Map.class);
+
+		// El rol sigue eligiendo el formulario, pero la sesión no abre los endpoints de administrador
+		assertEquals("admin", respuesta.get("role"));
+		String token = (String) respuesta.get("token");
+		assertNull(sessionStore.validar(token).getRole());
+		mvc.perform(get("/firebase/export/logins").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+			.andExpect(status().isForbidden());
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.app.pedido;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PromocionesTest {
+
+	private static final long AHORA = Instant.parse("2024-06-01T12:00:00Z").toEpochMilli();
+
+	private final TablaPrecios tabla = TablaPrecios.porDefecto();
+
+	@Test
+	void sinReglasQueApliquenDevuelveElMismoPedido() {
+		Promociones promociones = Promociones.compilar(List.of(regla("otro", "precio", 0, 0, "desconocido")));
+		Pedido pedido = tabla.cotizar(List.of("envio"));
+
+		assertSame(pedido, promociones.aplicar(pedido, List.of("envio"), tabla, AHORA));
+	}
+
+	@Test
+	void aplicaPrecioComboYPorcentajeEnCentavos() {
+		Promociones promociones = Promociones.compilar(List.of(
+			// Envío a 9,99 en vez de 15,00 (el más bajo de los dos)
+			regla("envio-999", "precio", 999, 0, "envio"),
+			regla("envio-1200", "precio", 1200, 0, "envio"),
+			// 2,50 menos por llevar envío y regalo
+			regla("combo", "combo", 250, 0, "regalo", "envio"),
+			// 10 % sobre el total: solo se aplica el mayor porcentaje
+			regla("global-5", "porcentaje", 0, 5),
+			regla("global-10", "porcentaje", 0, 10)));
+
+		List<String> extras = List.of("envio", "regalo", "envio");
+		Pedido pedido = promociones.aplicar(tabla.cotizar(extras), extras, tabla, AHORA);
+
+		// 100,00 + 2 × 9,99 + 5,00 - 2,50 = 122,48; menos 10 % (12,248 -> 12,25) = 110,23
+		assertEquals(11_023, pedido.getCostoCentavos());
+		assertEquals(List.of("envio-999", "combo", "global-10"), ((PedidoPromocional) pedido).getPromociones());
+		assertEquals(13_500, ((PedidoPromocional) pedido).getCostoOriginalCentavos());
+	}
+
+	@Test
+	void respetaLaVigencia() {
+		ReglaPromocion regla = regla("junio", "porcentaje", 0, 50);
+		regla.setDesde(Instant.parse("2024-06-01T00:00:00Z"));
+		regla.setHasta(Instant.parse("2024-07-01T00:00:00Z"));
+		Promociones promociones = Promociones.compilar(List.of(regla));
+		Pedido base = tabla.cotizar(List.of());
+
+		assertEquals(5_000, promociones.aplicar(base, List.of(), tabla, AHORA).getCostoCentavos());
+		assertSame(base, promociones.aplicar(base, List.of(), tabla, regla.getHasta().toEpochMilli()));
+	}
+
+	@Test
+	void soloRevisaLasReglasDeLosExtrasDelPedido() {
+		List<ReglaPromocion> reglas = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			reglas.add(regla("r" + i, "precio", 1, 0, "extra-" + i));
+		}
+		reglas.add(regla("regalo-gratis", "precio", 0, 0, "regalo"));
+		Promociones promociones = Promociones.compilar(reglas);
+
+		Pedido pedido = promociones.aplicar(tabla.cotizar(List.of("regalo")), List.of("regalo"), tabla, AHORA);
+		assertEquals(10_000, pedido.getCostoCentavos());
+	}
+
+	@Test
+	void rechazaReglasInvalidas() {
+		assertThrows(IllegalArgumentException.class,
+			() -> Promociones.compilar(List.of(regla("c", "combo", 100, 0, "envio"))));
+		assertThrows(IllegalArgumentException.class,
+			() -> Promociones.compilar(List.of(regla("p", "porcentaje", 0, 150))));
+		assertThrows(IllegalArgumentException.class,
+			() -> Promociones.compilar(List.of(regla("x", "precio", 1, 0, "envio"), regla("x", "precio", 2, 0, "regalo"))));
+	}
+
+	private static ReglaPromocion regla(String id, String tipo, long centavos, int porcentaje, String... extras) {
+		ReglaPromocion regla = new ReglaPromocion();
+		regla.setId(id);
+		regla.setTipo(tipo);
+		regla.setCentavos(centavos);
+		regla.setPorcentaje(porcentaje);
+		regla.setExtras(List.of(extras));
+		return regla;
+	}
+}
@@ -0,0 +1,57 @@
+package com.example.app.pedido;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TablaPreciosTest {
+
+	private final TablaPrecios tabla = TablaPrecios.porDefecto();
+
+	@Test
+	void coincideConLaCadenaDeDecoradores() {
+		List<List<String>> casos = List.of(
+			List.of(),
+			List.of("envio"),
+			List.of("regalo", "envio"),
+			List.of("envio", "regalo", "envio", "regalo", "regalo"),
+			List.of("desconocido", "regalo"));
+
+		for (List<String> extras : casos) {
+			Pedido esperado = cadena(extras);
+			Pedido obtenido = tabla.cotizar(extras);
+			assertEquals(esperado.getDescripcion(), obtenido.getDescripcion());
+			assertEquals(esperado.getCostoCentavos(), obtenido.getCostoCentavos());
+		}
+	}
+
+	@Test
+	void reutilizaLaMismaCombinacion() {
+		assertSame(tabla.cotizar(List.of("envio", "regalo")), tabla.cotizar(List.of("envio", "regalo")));
+	}
+
+	@Test
+	void resuelveSecuenciasMasLargasQueLaProfundidadMemorizada() {
+		List<String> extras = java.util.Collections.nCopies(TablaPrecios.PROFUNDIDAD_MAXIMA + 5, "envio");
+		assertEquals(cadena(extras).getCostoCentavos(), tabla.cotizar(extras).getCostoCentavos());
+	}
+
+	// Cadena de decoradores tal como la armaba el controlador originalmente
+	private static Pedido cadena(List<String> extras) {
+		Pedido pedido = new PedidoBase();
+		for (String extra : extras) {
+			switch (extra) {
+				case "envio":
+					pedido = new EnvioRapido(pedido);
+					break;
+				case "regalo":
+					pedido = new EnvolturaRegalo(pedido);
+					break;
+			}
+		}
+		return pedido;
+	}
+}
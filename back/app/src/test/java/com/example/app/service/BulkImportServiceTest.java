@@ -0,0 +1,54 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.store.DocumentQuery;
+import com.example.app.store.InMemoryDocumentStore;
+import com.example.app.store.ResilientDocumentStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BulkImportServiceTest {
+
+	// La primera escritura se guarda pero responde con tiempo agotado, como cuando se pierde la confirmación
+	private final AtomicBoolean agotada = new AtomicBoolean();
+	private final InMemoryDocumentStore store = new InMemoryDocumentStore() {
+		@Override
+		public CompletableFuture<String> save(String collection, String id, Map<String, Object> data) {
+			CompletableFuture<String> guardado = super.save(collection, id, data);
+			return agotada.compareAndSet(false, true)
+				? CompletableFuture.failedFuture(new TimeoutException("sin confirmación"))
+				: guardado;
+		}
+	};
+
+	@Test
+	void losReintentosNoDuplicanLasLineasSinId() throws Exception {
+		FirebaseService firebaseService = new FirebaseService(store, new MetricsRegistry(),
+			false, 10_000, 500, 50, 100,
+			64, 2, 5_000,
+			false, 1_000, 300, ResilientDocumentStore.Opciones.porOmision());
+		BulkImportService importador = new BulkImportService(firebaseService, new ObjectMapper(), new MetricsRegistry(),
+			4, 8, 5, 1, 1_000);
+		String entrada = "{\"n\":1}\n{\"n\":2}\n{\"n\":3}\n";
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		importador.importar("logins", new ByteArrayInputStream(entrada.getBytes(StandardCharsets.UTF_8)), salida);
+
+		assertTrue(agotada.get());
+		assertTrue(salida.toString(StandardCharsets.UTF_8).contains("\"retries\":1"));
+		assertEquals(3, store.query("logins", new DocumentQuery(null, null, 100, null)).get().getDocumentos().size());
+		firebaseService.close();
+	}
+}
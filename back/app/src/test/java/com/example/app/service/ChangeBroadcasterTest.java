@@ -0,0 +1,144 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitterReturnValueHandler;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.store.InMemoryDocumentStore;
+import com.example.app.store.ResilientDocumentStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.ServletOutputStream;
+
+class ChangeBroadcasterTest {
+
+	// La lectura del snapshot queda pendiente hasta que la prueba la completa
+	private final CompletableFuture<Map<String, Object>> lectura = new CompletableFuture<>();
+	private final InMemoryDocumentStore store = new InMemoryDocumentStore() {
+		@Override
+		public CompletableFuture<Map<String, Object>> get(String collection, String id) {
+			return lectura;
+		}
+	};
+
+	private final MetricsRegistry metrics = new MetricsRegistry();
+	private final FirebaseService firebaseService = new FirebaseService(store, metrics,
+		false, 10_000, 500, 50, 100,
+		64, 2, 5_000,
+		false, 1_000, 300, ResilientDocumentStore.Opciones.porOmision());
+	private ChangeBroadcaster broadcaster;
+
+	private ChangeBroadcaster broadcaster(int capacidadCola) {
+		broadcaster = new ChangeBroadcaster(firebaseService, new ObjectMapper(), metrics,
+			capacidadCola, 100, 1, 60, 1);
+		return broadcaster;
+	}
+
+	@AfterEach
+	void cerrar() throws Exception {
+		broadcaster.close();
+		firebaseService.close();
+	}
+
+	// Conecta el emitter a una respuesta simulada, como lo hace Spring MVC al devolverlo un controlador
+	private static void conectar(SseEmitter emitter, MockHttpServletResponse response) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAsyncSupported(true);
+		ServletWebRequest webRequest = new ServletWebRequest(request, response);
+		WebAsyncUtils.getAsyncManager(webRequest).setAsyncWebRequest(new StandardServletAsyncWebRequest(request, response));
+		MethodParameter tipo = new MethodParameter(ChangeBroadcaster.class.getMethod("suscribir", String.class, String.class), -1);
+		new ResponseBodyEmitterReturnValueHandler(List.of(new StringHttpMessageConverter()))
+			.handleReturnValue(emitter, tipo, new ModelAndViewContainer(), webRequest);
+	}
+
+	private static String contenido(MockHttpServletResponse response) {
+		return new String(response.getContentAsByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condicion.getAsBoolean()) {
+			assertTrue(System.nanoTime() < limite, "No se cumplió la condición a tiempo");
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	void elSnapshotSaleAntesQueLosCambiosQueLleganMientrasSeLee() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		conectar(broadcaster(8).suscribir("logins", "a"), response);
+
+		// El cambio llega antes de que termine la lectura del estado actual
+		store.save("logins", "a", Map.of("n", 2)).get();
+		lectura.complete(Map.of("n", 1));
+
+		esperar(() -> contenido(response).contains("event:change"));
+		String eventos = contenido(response);
+		int snapshot = eventos.indexOf("event:snapshot");
+		int cambio = eventos.indexOf("event:change");
+		assertTrue(snapshot >= 0 && snapshot < cambio, eventos);
+		assertTrue(eventos.substring(snapshot, cambio).contains("\"n\":1"), eventos);
+		assertTrue(eventos.substring(cambio).contains("\"n\":2"), eventos);
+	}
+
+	@Test
+	void desconectaAlSuscriptorLentoCuandoSeLlenaSuCola() throws Exception {
+		// La conexión no avanza: el primer envío se queda escribiendo y los siguientes esperan en la cola
+		CountDownLatch liberar = new CountDownLatch(1);
+		CountDownLatch escribiendo = new CountDownLatch(1);
+		MockHttpServletResponse response = new MockHttpServletResponse() {
+			@Override
+			public ServletOutputStream getOutputStream() {
+				return new DelegatingServletOutputStream(new OutputStream() {
+					@Override
+					public void write(int b) throws IOException {
+						escribiendo.countDown();
+						try {
+							liberar.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new IOException(e);
+						}
+					}
+				});
+			}
+		};
+		ChangeBroadcaster broadcaster = broadcaster(2);
+		conectar(broadcaster.suscribir("logins", null), response);
+		assertEquals(1, broadcaster.getSuscriptores());
+
+		store.save("logins", "1", Map.of()).get();
+		assertTrue(escribiendo.await(5, TimeUnit.SECONDS));
+		for (int i = 2; i <= 4; i++) {
+			store.save("logins", String.valueOf(i), Map.of()).get();
+		}
+
+		assertEquals(0, broadcaster.getSuscriptores());
+		assertEquals(1, metrics.counter("stream_slow_disconnects_total", "").sum());
+		liberar.countDown();
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CotizacionLoteServiceTest {
+
+	@TempDir
+	Path directorio;
+
+	private CotizacionLoteService servicio() {
+		RegistroExtras extras = new RegistroExtras(new FileSystemResource(directorio.resolve("extras.properties")));
+		return new CotizacionLoteService(extras, new RegistroPromociones(new MetricsRegistry()), new ObjectMapper());
+	}
+
+	private static ByteArrayInputStream lote(String contenido) {
+		return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void escribeUnaLineaPorCotizacionEnOrden() throws Exception {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		long total = servicio().cotizar(lote("[[], [\"envio\"], [\"no-existe\"]]"), salida, false);
+
+		List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+		assertEquals(3, total);
+		assertEquals(3, lineas.size());
+		assertTrue(lineas.get(2).contains("\"desconocidos\":[\"no-existe\"]"));
+	}
+
+	@Test
+	void antesDelErrorEscribeLasCotizacionesDelBloquePendiente() {
+		// Más de un bloque completo, así la respuesta ya se envió cuando aparece la línea inválida
+		int validas = CotizacionLoteService.TAMANO_BLOQUE + 10;
+		StringBuilder entrada = new StringBuilder();
+		for (int i = 0; i < validas; i++) {
+			entrada.append("[\"envio\"]\n");
+		}
+		entrada.append("[\"envio\", 3]\n").append("[\"envio\"]\n");
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		JsonProcessingException error = assertThrows(JsonProcessingException.class,
+			() -> servicio().cotizar(lote(entrada.toString()), salida, true));
+
+		assertEquals(validas, salida.toString(StandardCharsets.UTF_8).lines().count());
+		assertEquals(validas + 1, error.getLocation().getLineNr());
+	}
+
+	@Test
+	void siNoSeEscribioNadaElErrorNoDejaSalida() {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+		assertThrows(JsonProcessingException.class,
+			() -> servicio().cotizar(lote("[\"envio\"]\n{\"extras\": []}\n"), salida, true));
+
+		assertEquals(0, salida.size());
+	}
+}
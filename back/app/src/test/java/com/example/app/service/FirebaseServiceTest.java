@@ -0,0 +1,99 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.store.DocumentPage;
+import com.example.app.store.InMemoryDocumentStore;
+import com.example.app.store.ResilientDocumentStore;
+
+class FirebaseServiceTest {
+
+	// Registra los IDs de cada getAll y falla los lotes que incluyen "roto"
+	private final List<List<String>> lecturas = new ArrayList<>();
+	private final InMemoryDocumentStore store = new InMemoryDocumentStore() {
+		@Override
+		public CompletableFuture<Map<String, Map<String, Object>>> getAll(String collection, Collection<String> ids) {
+			synchronized (lecturas) {
+				lecturas.add(List.copyOf(ids));
+			}
+			return ids.contains("roto")
+				? CompletableFuture.failedFuture(new IllegalStateException("lote fallido"))
+				: super.getAll(collection, ids);
+		}
+	};
+
+	private FirebaseService servicio(boolean cache) {
+		return new FirebaseService(store, new MetricsRegistry(),
+			false, 10_000, 500, 50, 100,
+			64, 2, 5_000,
+			cache, 1_000, 300, ResilientDocumentStore.Opciones.porOmision());
+	}
+
+	@Test
+	void leeCadaIdUnaVezYSoloPideAlAlmacenLosQueNoEstanEnCache() throws Exception {
+		store.save("logins", "a", Map.of("n", 1L)).get();
+		store.save("logins", "b", Map.of("n", 2L)).get();
+		FirebaseService firebaseService = servicio(true);
+		firebaseService.getDocument("logins", "a");
+
+		Map<String, DocumentResult> resultados = firebaseService.getDocuments("logins", List.of("b", "a", "b", "x")).get();
+
+		assertEquals(List.of("b", "a", "x"), new ArrayList<>(resultados.keySet()));
+		assertEquals(2L, resultados.get("b").getData().get("n"));
+		assertEquals(1L, resultados.get("a").getData().get("n"));
+		assertEquals(DocumentResult.INEXISTENTE, resultados.get("x").getStatus());
+		assertEquals(List.of(List.of("b", "x")), lecturas);
+		firebaseService.close();
+	}
+
+	@Test
+	void unLoteFallidoSoloMarcaSusIds() throws Exception {
+		FirebaseService firebaseService = servicio(false);
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < FirebaseService.IDS_POR_LECTURA; i++) {
+			ids.add("id" + i);
+		}
+		ids.add("roto");
+		store.save("logins", "id0", Map.of("n", 0L)).get();
+		store.save("logins", "roto", Map.of("n", 1L)).get();
+
+		Map<String, DocumentResult> resultados = firebaseService.getDocuments("logins", ids).get();
+
+		assertEquals(DocumentResult.ENCONTRADO, resultados.get("id0").getStatus());
+		assertEquals(DocumentResult.INEXISTENTE, resultados.get("id1").getStatus());
+		assertEquals(DocumentResult.ERROR, resultados.get("roto").getStatus());
+		assertEquals("lote fallido", resultados.get("roto").getError());
+		firebaseService.close();
+	}
+
+	@Test
+	void recorreTodasLasPaginasConUnaODosAdelantadas() throws Exception {
+		for (int i = 0; i < 7; i++) {
+			store.save("logins", "id" + i, Map.of("n", (long) i)).get();
+		}
+		FirebaseService firebaseService = servicio(false);
+
+		for (int adelantadas = 1; adelantadas <= 2; adelantadas++) {
+			List<String> ids;
+			try (Stream<DocumentPage> paginas = firebaseService.queryPages("logins", null, null, 3, adelantadas)) {
+				ids = paginas.flatMap(pagina -> pagina.getDocumentos().stream())
+					.map(DocumentPage.Entry::getId)
+					.collect(Collectors.toList());
+			}
+			assertEquals(7, ids.size());
+			assertEquals(7, ids.stream().distinct().count());
+		}
+		firebaseService.close();
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.app.model.GenericField;
+import com.example.app.service.FormSchemaService.FormDelta;
+import com.example.app.service.FormValidator.FieldError;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class FormSchemaServiceTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private final FormSchemaService service = new FormSchemaService(objectMapper);
+
+	@Test
+	void laVersionActualNoTieneCambios() {
+		String version = service.obtener("admin").getVersion();
+
+		assertNull(service.delta("admin", version));
+		assertEquals(version, service.obtener("ADMIN").getVersion());
+	}
+
+	@Test
+	void enviaSoloLosCamposAgregadosCambiadosYQuitados() throws Exception {
+		service.registrar("demo", () -> List.of(
+			new GenericField("a", "text", "A", false),
+			new GenericField("b", "text", "B", false),
+			new GenericField("c", "text", "C", false)));
+		String v1 = service.obtener("demo").getVersion();
+
+		service.registrar("demo", () -> List.of(
+			new GenericField("a", "text", "A", false),
+			new GenericField("c", "email", "C", true),
+			new GenericField("d", "text", "D", false)));
+		String v2 = service.obtener("demo").getVersion();
+		assertNotEquals(v1, v2);
+
+		FormDelta delta = service.delta("demo", v1);
+		JsonNode cuerpo = objectMapper.readTree(delta.getJson());
+		assertEquals(v1, cuerpo.get("from").asText());
+		assertEquals(v2, cuerpo.get("to").asText());
+		assertFalse(cuerpo.get("reset").asBoolean());
+		assertEquals("d", cuerpo.get("added").get(0).get("id").asText());
+		assertEquals(1, cuerpo.get("added").size());
+		assertEquals("email", cuerpo.get("changed").get(0).get("type").asText());
+		assertEquals(1, cuerpo.get("changed").size());
+		assertEquals("b", cuerpo.get("removed").get(0).asText());
+		// Solo se quitó un campo y se agregó otro al final: el orden no cambia
+		assertFalse(cuerpo.has("order"));
+
+		// Los cambios entre dos versiones se calculan una sola vez
+		assertSame(delta, service.delta("demo", v1));
+	}
+
+	@Test
+	void unaVersionDesconocidaRecibeElFormularioCompleto() throws Exception {
+		FormDelta delta = service.delta("guest", "no-existe");
+		JsonNode cuerpo = objectMapper.readTree(delta.getJson());
+
+		assertTrue(cuerpo.get("reset").asBoolean());
+		assertEquals(3, cuerpo.get("added").size());
+		assertEquals(service.obtener("guest").getVersion(), delta.getVersion());
+	}
+
+	@Test
+	void validaLosEnviosConLosCamposDelEsquema() {
+		FormValidator validator = service.obtener("admin").getValidator();
+
+		assertTrue(validator.validar(Map.of("username", "ana", "admin_key", "admin123")).isEmpty());
+
+		List<FieldError> errores = validator.validar(Map.of("admin_key", "corta", "otro", "x"));
+		assertEquals(List.of("username:required", "admin_key:invalid_password", "otro:unknown_field"),
+			errores.stream().map(e -> e.getField() + ":" + e.getCode()).toList());
+	}
+}
@@ -0,0 +1,67 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.example.app.metrics.MetricsRegistry;
+
+class IdempotencyCacheTest {
+
+	private final IdempotencyCache cache = new IdempotencyCache(1_000, 120, true, new MetricsRegistry());
+	private final AtomicInteger ejecuciones = new AtomicInteger();
+
+	// Cada ejecución responde con un número distinto, como el token de una sesión nueva
+	private CompletableFuture<ResponseEntity<?>> operacion() {
+		return CompletableFuture.completedFuture(ResponseEntity.ok(Map.of("n", ejecuciones.incrementAndGet())));
+	}
+
+	private ResponseEntity<?> ejecutar(String clave, Object cuerpo) {
+		return cache.ejecutar(clave, cuerpo, this::operacion).join();
+	}
+
+	@Test
+	void laMismaClaveYElMismoCuerpoRepitenLaRespuesta() {
+		Map<String, Object> cuerpo = Map.of("email", "a@b.c");
+		String clave = cache.clave("/firebase/test", null, cuerpo);
+
+		ResponseEntity<?> primera = ejecutar(clave, cuerpo);
+		ResponseEntity<?> repetida = ejecutar(clave, Map.of("email", "a@b.c"));
+
+		assertEquals(1, ejecuciones.get());
+		assertEquals(primera.getBody(), repetida.getBody());
+		assertEquals("true", repetida.getHeaders().getFirst(IdempotencyCache.HEADER_REPETIDA));
+	}
+
+	@Test
+	void unaClaveReutilizadaConOtroCuerpoRecibe422() {
+		String clave = cache.clave("/firebase/test", "clave-1", Map.of("email", "a@b.c"));
+		ejecutar(clave, Map.of("email", "a@b.c"));
+
+		ResponseEntity<?> otra = ejecutar(clave, Map.of("email", "otro@b.c"));
+
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, otra.getStatusCode());
+		assertEquals(1, ejecuciones.get());
+	}
+
+	@Test
+	void sinEncabezadoLaClaveExplicitaNoDeduplica() {
+		Map<String, Object> cuerpo = Map.of("email", "a@b.c", "password", "x");
+		String clave = cache.claveExplicita("/firebase/login", null);
+
+		ResponseEntity<?> primera = ejecutar(clave, cuerpo);
+		ResponseEntity<?> segunda = ejecutar(clave, cuerpo);
+
+		assertNull(clave);
+		assertEquals(2, ejecuciones.get());
+		assertNotEquals(primera.getBody(), segunda.getBody());
+	}
+}
@@ -0,0 +1,51 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+class RegistroExtrasTest {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void aplicaLosCambiosDelArchivoAlRevisarlo() throws Exception {
+		Path archivo = directorio.resolve("extras.properties");
+		Files.writeString(archivo, "tarjeta=Tarjeta;1.50\n", StandardCharsets.UTF_8);
+		RegistroExtras registro = new RegistroExtras(new FileSystemResource(archivo));
+		long base = registro.tabla().cotizar(List.of()).getCostoCentavos();
+		assertEquals(base + 150, registro.tabla().cotizar(List.of("tarjeta")).getCostoCentavos());
+
+		Files.writeString(archivo, "tarjeta=Tarjeta;2.25\n", StandardCharsets.UTF_8);
+		// La fecha de modificación puede tener resolución de segundos
+		Files.setLastModifiedTime(archivo, FileTime.fromMillis(Files.getLastModifiedTime(archivo).toMillis() + 2_000));
+		registro.revisarCambios();
+
+		assertEquals(base + 225, registro.tabla().cotizar(List.of("tarjeta")).getCostoCentavos());
+	}
+
+	@Test
+	void usaElCatalogoIncluidoHastaQueSeCreaElArchivo() throws Exception {
+		Path archivo = directorio.resolve("config/extras.properties");
+		RegistroExtras registro = new RegistroExtras(new FileSystemResource(archivo));
+		assertTrue(registro.tabla().conoce("envio"));
+
+		Files.createDirectories(archivo.getParent());
+		Files.writeString(archivo, "tarjeta=Tarjeta;1.00\n", StandardCharsets.UTF_8);
+		registro.revisarCambios();
+
+		assertTrue(registro.tabla().conoce("tarjeta"));
+		assertFalse(registro.tabla().conoce("envio"));
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.app.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class WriteBehindWriterTest {
+
+	// Sustituto en memoria de Firestore: guarda los documentos y el tamaño de cada lote
+	private final Map<String, Map<String, Object>> documentos = new ConcurrentHashMap<>();
+	private final List<Integer> lotes = Collections.synchronizedList(new ArrayList<>());
+
+	private String guardar(List<WriteBehindWriter.PendingWrite> lote) {
+		for (WriteBehindWriter.PendingWrite escritura : lote) {
+			documentos.put(escritura.getCollection() + "/" + escritura.getId(), escritura.getData());
+		}
+		lotes.add(lote.size());
+		return "hora";
+	}
+
+	@Test
+	void agrupaPorTamanoYConfirmaCadaEscritura() throws Exception {
+		List<CompletableFuture<String>> futuros = new ArrayList<>();
+		try (WriteBehindWriter writer = new WriteBehindWriter(this::guardar, 100, 10, Duration.ofSeconds(5), Duration.ofSeconds(1))) {
+			for (int i = 0; i < 25; i++) {
+				futuros.add(writer.enqueue("logins", "id" + i, Map.of("n", i)));
+			}
+			for (CompletableFuture<String> futuro : futuros.subList(0, 20)) {
+				assertEquals("hora", futuro.get(5, TimeUnit.SECONDS));
+			}
+		}
+		// Al cerrar se confirman las que quedaban aunque no llenaran un lote
+		assertEquals("hora", futuros.get(24).get(5, TimeUnit.SECONDS));
+		assertEquals(25, documentos.size());
+		assertTrue(lotes.stream().allMatch(tamano -> tamano <= 10));
+	}
+
+	@Test
+	void confirmaAlVencerLaVentana() throws Exception {
+		try (WriteBehindWriter writer = new WriteBehindWriter(this::guardar, 100, 500, Duration.ofMillis(20), Duration.ofSeconds(1))) {
+			assertEquals("hora", writer.enqueue("test_connection", "a", Map.of()).get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(List.of(1), lotes);
+	}
+
+	@Test
+	void rechazaCuandoLaColaEstaLlena() throws Exception {
+		CountDownLatch liberar = new CountDownLatch(1);
+		WriteBehindWriter.BatchCommitter bloqueado = lote -> {
+			liberar.await();
+			return "hora";
+		};
+		try (WriteBehindWriter writer = new WriteBehindWriter(bloqueado, 2, 1, Duration.ZERO, Duration.ofMillis(10))) {
+			writer.enqueue("logins", "1", Map.of());
+			// El hilo de fondo toma la primera y se bloquea; las dos siguientes llenan la cola
+			Thread.sleep(50);
+			writer.enqueue("logins", "2", Map.of());
+			writer.enqueue("logins", "3", Map.of());
+			assertThrows(RejectedExecutionException.class, () -> writer.enqueue("logins", "4", Map.of()));
+			liberar.countDown();
+		}
+	}
+
+	@Test
+	void propagaLosErroresDelLote() throws Exception {
+		try (WriteBehindWriter writer = new WriteBehindWriter(lote -> {
+			throw new IllegalStateException("sin conexión");
+		}, 10, 10, Duration.ZERO, Duration.ofSeconds(1))) {
+			CompletableFuture<String> futuro = writer.enqueue("logins", "1", Map.of());
+			ExecutionException error = assertThrows(ExecutionException.class, () -> futuro.get(5, TimeUnit.SECONDS));
+			assertTrue(error.getCause() instanceof IllegalStateException);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.app.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// La rueda se avanza a mano con avanzarHasta, así que las pruebas no dependen del reloj
+class TimingWheelTest {
+
+	private final List<String> vencidos = new ArrayList<>();
+	private final TimingWheel<String> rueda = new TimingWheel<>(10, vencidos::add);
+
+	@Test
+	void venceCadaElementoEnSuTicYNoAntes() {
+		rueda.programarEn("a", 25);
+		rueda.programarEn("b", 10);
+		rueda.programarEn("c", 30);
+
+		rueda.avanzarHasta(9);
+		assertTrue(vencidos.isEmpty());
+
+		rueda.avanzarHasta(10);
+		assertEquals(List.of("b"), vencidos);
+
+		// 25 ms se redondea al tic siguiente (30 ms)
+		rueda.avanzarHasta(29);
+		assertEquals(List.of("b"), vencidos);
+
+		rueda.avanzarHasta(30);
+		assertEquals(List.of("b", "a", "c"), vencidos);
+	}
+
+	@Test
+	void reparteLosNivelesSuperioresSinAdelantarNiAtrasar() {
+		// 64 tics de nivel 0; 4096 tics de nivel 1; más allá va al nivel 2 o 3
+		long[] vencimientos = {640, 650, 40_960, 41_000, 2_621_440, 3_000_000, 170_000_000};
+		for (long vence : vencimientos) {
+			rueda.programarEn(String.valueOf(vence), vence);
+		}
+
+		for (long vence : vencimientos) {
+			rueda.avanzarHasta(vence - 10);
+			assertTrue(!vencidos.contains(String.valueOf(vence)), "venció antes de tiempo: " + vence);
+			rueda.avanzarHasta(vence);
+			assertTrue(vencidos.contains(String.valueOf(vence)), "no venció a tiempo: " + vence);
+		}
+		assertEquals(vencimientos.length, vencidos.size());
+	}
+
+	@Test
+	void loProgramadoEnElPasadoVenceEnElSiguienteAvance() {
+		rueda.avanzarHasta(1_000);
+		rueda.programarEn("tarde", 500);
+
+		rueda.avanzarHasta(1_000);
+		assertEquals(List.of("tarde"), vencidos);
+	}
+}
@@ -0,0 +1,99 @@
+package com.example.app.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class LocalLogDocumentStoreTest {
+
+	private static final int SEGMENTO = 4096;
+
+	@TempDir
+	Path directorio;
+
+	private LocalLogDocumentStore abrir() throws Exception {
+		return new LocalLogDocumentStore(directorio, SEGMENTO, 0.5, 60_000, new ObjectMapper());
+	}
+
+	@Test
+	void guardaYLeeLaUltimaVersion() throws Exception {
+		try (LocalLogDocumentStore store = abrir()) {
+			store.save("logins", "a", Map.of("email", "a@email.com", "timestamp", 1L)).get();
+			store.save("logins", "a", Map.of("email", "a@email.com", "timestamp", 2L)).get();
+
+			assertEquals(2L, store.get("logins", "a").get().get("timestamp"));
+			assertNull(store.get("logins", "b").get());
+		}
+	}
+
+	@Test
+	void recuperaElIndiceAlReabrir() throws Exception {
+		try (LocalLogDocumentStore store = abrir()) {
+			for (int i = 0; i < 300; i++) {
+				store.save("logins", "id" + (i % 20), Map.of("n", (long) i)).get();
+			}
+			store.saveAll(List.of(new DocumentWrite("test_connection", "x", Map.of("ok", true)))).get();
+		}
+
+		try (LocalLogDocumentStore store = abrir()) {
+			assertEquals(21, store.size());
+			assertEquals(299L, store.get("logins", "id19").get().get("n"));
+			assertEquals(true, store.get("test_connection", "x").get().get("ok"));
+		}
+	}
+
+	@Test
+	void compactaLosSegmentosConVersionesObsoletas() throws Exception {
+		try (LocalLogDocumentStore store = abrir()) {
+			for (int i = 0; i < 500; i++) {
+				store.save("logins", "id" + (i % 5), Map.of("n", (long) i)).get();
+			}
+			long antes = contarSegmentos();
+			store.compactar();
+
+			assertEquals(true, contarSegmentos() < antes);
+			assertEquals(499L, store.get("logins", "id4").get().get("n"));
+		}
+
+		try (LocalLogDocumentStore store = abrir()) {
+			assertEquals(5, store.size());
+			assertEquals(495L, store.get("logins", "id0").get().get("n"));
+		}
+	}
+
+	@Test
+	void avisaLosCambiosALosOyentes() throws Exception {
+		try (LocalLogDocumentStore store = abrir()) {
+			List<String> documento = new ArrayList<>();
+			List<String> coleccion = new ArrayList<>();
+			Runnable dejarDeEscuchar = store.listen("logins", "a", cambio -> documento.add(cambio.getId() + "=" + cambio.getData().get("n")), error -> { });
+			store.listen("logins", null, cambio -> coleccion.add(cambio.getId()), error -> { });
+
+			store.save("logins", "a", Map.of("n", 1L)).get();
+			store.saveAll(List.of(new DocumentWrite("logins", "b", Map.of("n", 2L)),
+				new DocumentWrite("test_connection", "a", Map.of("n", 3L)))).get();
+			dejarDeEscuchar.run();
+			store.save("logins", "a", Map.of("n", 4L)).get();
+
+			assertEquals(List.of("a=1"), documento);
+			assertEquals(List.of("a", "b", "a"), coleccion);
+		}
+	}
+
+	private long contarSegmentos() throws Exception {
+		try (Stream<Path> archivos = Files.list(directorio)) {
+			return archivos.count();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.app.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.app.metrics.MetricsRegistry;
+
+class ResilientDocumentStoreTest {
+
+	private final InMemoryDocumentStore memoria = new InMemoryDocumentStore();
+	private final LatencyInjectingDocumentStore lento = new LatencyInjectingDocumentStore(memoria);
+
+	// Presupuesto de 400 ms: sin muestras el hedge sale a los 200 ms. Circuito de 4 lecturas
+	private final ResilientDocumentStore store = new ResilientDocumentStore(lento,
+		new ResilientDocumentStore.Opciones(true, 400, 0.95, 20, 4, 0.5, Duration.ofMillis(300), 100),
+		new MetricsRegistry());
+
+	@Test
+	void laLecturaDuplicadaRespondeSiElPrimerIntentoSeDemora() throws Exception {
+		memoria.save("logins", "a", Map.of("n", 1L)).get();
+
+		// El primer intento tarda 10 s; el duplicado ya no tiene demora
+		lento.setLatenciaMs(10_000);
+		long inicio = System.nanoTime();
+		var lectura = store.get("logins", "a");
+		lento.setLatenciaMs(0);
+
+		assertEquals(1L, lectura.get().get("n"));
+		assertTrue(System.nanoTime() - inicio < 1_000_000_000L);
+	}
+
+	@Test
+	void conElCircuitoAbiertoRespondeConElUltimoValorValido() throws Exception {
+		memoria.save("logins", "a", Map.of("n", 1L)).get();
+		memoria.save("logins", "b", Map.of("n", 2L)).get();
+		assertEquals(1L, store.get("logins", "a").get().get("n"));
+
+		lento.setTasaFallos(1);
+		assertEquals(1L, store.get("logins", "a").get().get("n"));
+		assertEquals(1L, store.get("logins", "a").get().get("n"));
+		assertEquals(CircuitBreaker.Estado.OPEN, store.estadoCircuito());
+
+		// "b" nunca se leyó: no hay valor de respaldo
+		ExecutionException error = assertThrows(ExecutionException.class, () -> store.get("logins", "b").get());
+		assertInstanceOf(RejectedExecutionException.class, error.getCause());
+
+		// Pasado el tiempo abierto, una lectura de prueba exitosa cierra el circuito
+		lento.setTasaFallos(0);
+		Thread.sleep(350);
+		assertEquals(2L, store.get("logins", "b").get().get("n"));
+		assertEquals(CircuitBreaker.Estado.CLOSED, store.estadoCircuito());
+	}
+}
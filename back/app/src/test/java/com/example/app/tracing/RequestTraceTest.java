@@ -0,0 +1,42 @@
+package com.example.app.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RequestTraceTest {
+
+	@Test
+	void registraLasEtapasYCierraLasAbiertasAlFinalizar() {
+		RequestTrace traza = new RequestTrace("GET", "/firebase/user/a");
+		int controlador = traza.iniciar("controller");
+		int lectura = traza.iniciar("firebase_service.get");
+		traza.terminar(lectura);
+		traza.terminar("controller");
+		traza.iniciar("serialization");
+
+		traza.finalizar(200);
+
+		assertEquals(3, traza.getEtapas());
+		assertEquals("firebase_service.get", traza.getNombre(lectura));
+		assertEquals(200, traza.getEstado());
+		for (int i = 0; i < traza.getEtapas(); i++) {
+			assertTrue(traza.getDuracionNanos(i) > 0);
+			assertTrue(traza.getInicioNanos(i) + traza.getDuracionNanos(i) <= traza.getDuracionNanos());
+		}
+		assertTrue(traza.getInicioNanos(controlador) <= traza.getInicioNanos(lectura));
+	}
+
+	@Test
+	void ignoraLasEtapasQueExcedenElMaximo() {
+		RequestTrace traza = new RequestTrace("POST", "/firebase/save");
+		for (int i = 0; i < RequestTrace.MAX_ETAPAS; i++) {
+			traza.iniciar("etapa" + i);
+		}
+
+		assertEquals(-1, traza.iniciar("sobrante"));
+		traza.terminar(-1);
+		assertEquals(RequestTrace.MAX_ETAPAS, traza.getEtapas());
+	}
+}
@@ -0,0 +1,98 @@
+package com.example.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta los benchmarks, guarda los resultados en JSON y los compara con los límites
+ * configurados. Si algún benchmark supera su límite, termina con código 1.
+ *
+ * Propiedades del sistema:
+ *   jmh.include     expresión regular de los benchmarks a ejecutar (por omisión, todos)
+ *   jmh.result      archivo JSON de resultados (por omisión, jmh-result.json)
+ *   jmh.thresholds  archivo de límites; sin él solo se guardan los resultados
+ *
+ * Cada línea del archivo de límites es "Clase.metodo=valor" o "Clase.metodo[param=valor]=valor",
+ * en la unidad del benchmark (ns/op). La clave con parámetros tiene prioridad.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Options options = new OptionsBuilder()
+            .include(System.getProperty("jmh.include", ".*"))
+            .resultFormat(ResultFormatType.JSON)
+            .result(System.getProperty("jmh.result", "jmh-result.json"))
+            .build();
+
+        Collection<RunResult> resultados = new Runner(options).run();
+
+        String archivoLimites = System.getProperty("jmh.thresholds");
+        if (archivoLimites == null) {
+            return;
+        }
+
+        Properties limites = new Properties();
+        try (InputStream in = Files.newInputStream(Path.of(archivoLimites))) {
+            limites.load(in);
+        }
+
+        List<String> excedidos = new ArrayList<>();
+        for (RunResult resultado : resultados) {
+            String nombre = nombre(resultado);
+            String limite = limites.getProperty(nombreConParametros(resultado), limites.getProperty(nombre));
+            if (limite == null) {
+                continue;
+            }
+            double puntaje = resultado.getPrimaryResult().getScore();
+            if (puntaje > Double.parseDouble(limite)) {
+                excedidos.add(String.format("%s: %.1f %s (límite %s)",
+                    nombreConParametros(resultado), puntaje, resultado.getPrimaryResult().getScoreUnit(), limite));
+            }
+        }
+
+        if (!excedidos.isEmpty()) {
+            System.err.println("Benchmarks por encima del límite:");
+            excedidos.forEach(linea -> System.err.println("  " + linea));
+            System.exit(1);
+        }
+        System.out.println("Todos los benchmarks están dentro de sus límites");
+    }
+
+    // "PedidoBenchmark.tablaPrecios"
+    private static String nombre(RunResult resultado) {
+        String completo = resultado.getParams().getBenchmark();
+        int metodo = completo.lastIndexOf('.');
+        int clase = completo.lastIndexOf('.', metodo - 1);
+        return completo.substring(clase + 1);
+    }
+
+    // "PedidoBenchmark.tablaPrecios[extras=16]"
+    private static String nombreConParametros(RunResult resultado) {
+        StringBuilder sb = new StringBuilder(nombre(resultado));
+        Collection<String> claves = resultado.getParams().getParamsKeys();
+        if (!claves.isEmpty()) {
+            sb.append('[');
+            for (String clave : claves) {
+                if (sb.charAt(sb.length() - 1) != '[') {
+                    sb.append(',');
+                }
+                sb.append(clave).append('=').append(resultado.getParams().getParam(clave));
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+}
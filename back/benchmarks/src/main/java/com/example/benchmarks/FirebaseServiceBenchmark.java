@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.metrics.MetricsRegistry;
+import com.example.app.service.DocumentResult;
+import com.example.app.service.FirebaseService;
+import com.example.app.store.InMemoryDocumentStore;
+import com.example.app.store.ResilientDocumentStore;
+
+// FirebaseService sobre el almacén en memoria: mide el costo propio del servicio (bulkhead, caché, futuros)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FirebaseServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private FirebaseService firebaseService;
+    private Map<String, Object> documento;
+    private List<String> ids;
+
+    @Setup
+    public void preparar() throws Exception {
+        firebaseService = new FirebaseService(new InMemoryDocumentStore(), new MetricsRegistry(),
+            false, 10_000, 500, 50, 100,
+            1024, 4, 5_000,
+            cache, 10_000, 300, ResilientDocumentStore.Opciones.porOmision());
+
+        documento = new HashMap<>();
+        documento.put("email", "admin@email.com");
+        documento.put("timestamp", System.currentTimeMillis());
+        documento.put("success", true);
+        firebaseService.saveDocument("logins", "existente", documento);
+
+        // 50 IDs, con repetidos: la mitad existen
+        ids = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            if (i % 2 == 0) {
+                firebaseService.saveDocument("logins", "lote" + i, documento);
+            }
+            ids.add("lote" + (i % 40));
+        }
+    }
+
+    @TearDown
+    public void cerrar() throws InterruptedException {
+        firebaseService.close();
+    }
+
+    @Benchmark
+    public String saveDocument() throws Exception {
+        return firebaseService.saveDocument("logins", "benchmark", documento);
+    }
+
+    @Benchmark
+    public Map<String, Object> getDocument() throws Exception {
+        return firebaseService.getDocument("logins", "existente");
+    }
+
+    @Benchmark
+    public Map<String, DocumentResult> getDocuments() throws Exception {
+        return firebaseService.getDocuments("logins", ids).get();
+    }
+}
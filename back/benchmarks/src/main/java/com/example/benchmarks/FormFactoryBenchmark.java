@@ -0,0 +1,55 @@
+package com.example.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.factory.AdminFormFactory;
+import com.example.app.factory.FormField;
+import com.example.app.factory.GuestFormFactory;
+import com.example.app.model.FormFactory;
+import com.example.app.service.FormSchemaService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Creación de los campos de formulario por rol, y el esquema ya serializado que sirve FormController
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormFactoryBenchmark {
+
+    @Param({"admin", "guest"})
+    public String role;
+
+    private FormFactory factory;
+    private FormSchemaService formSchemaService;
+
+    @Setup
+    public void preparar() {
+        factory = "admin".equals(role) ? new AdminFormFactory() : new GuestFormFactory();
+        formSchemaService = new FormSchemaService(new ObjectMapper());
+    }
+
+    @Benchmark
+    public List<FormField> createFormFields() {
+        return factory.createFormFields();
+    }
+
+    @Benchmark
+    public byte[] esquemaEnCache() {
+        return formSchemaService.obtener(role).getJson();
+    }
+}
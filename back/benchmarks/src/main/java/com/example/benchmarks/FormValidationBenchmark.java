@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.factory.FormField;
+import com.example.app.model.GenericField;
+import com.example.app.service.FormValidator;
+import com.example.app.service.FormValidator.FieldError;
+
+// Validación de envíos con un formulario sintético de `campos` campos de todos los tipos
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormValidationBenchmark {
+
+    private static final String[] TIPOS = {"text", "email", "password", "number", "tel", "url", "date", "checkbox"};
+    private static final String[] VALORES = {"Juan Pérez", "juan@email.com", "clave-segura-1", "1234.5",
+        "+56 9 1234 5678", "https://example.com/perfil", "2024-05-01", "true"};
+
+    // Envíos por lote en validarLote
+    private static final int TAMANO_LOTE = 100;
+
+    @Param({"10", "500"})
+    public int campos;
+
+    private List<FormField> formulario;
+    private FormValidator validator;
+    private Map<String, Object> envioValido;
+    private Map<String, Object> envioInvalido;
+    private List<Map<String, Object>> lote;
+
+    @Setup
+    public void preparar() {
+        formulario = new ArrayList<>(campos);
+        envioValido = new HashMap<>();
+        for (int i = 0; i < campos; i++) {
+            String id = "campo_" + i;
+            formulario.add(new GenericField(id, TIPOS[i % TIPOS.length], "Campo " + i, i % 2 == 0));
+            envioValido.put(id, VALORES[i % VALORES.length]);
+        }
+        validator = FormValidator.compilar(formulario);
+
+        // Uno de cada diez campos con un valor que no corresponde a su tipo, y uno obligatorio vacío
+        envioInvalido = new HashMap<>(envioValido);
+        for (int i = 1; i < campos; i += 10) {
+            envioInvalido.put("campo_" + i, "no válido");
+        }
+        envioInvalido.remove("campo_0");
+
+        lote = new ArrayList<>(TAMANO_LOTE);
+        for (int i = 0; i < TAMANO_LOTE; i++) {
+            lote.add(i % 10 == 0 ? envioInvalido : envioValido);
+        }
+    }
+
+    @Benchmark
+    public FormValidator compilar() {
+        return FormValidator.compilar(formulario);
+    }
+
+    @Benchmark
+    public List<FieldError> validarEnvioValido() {
+        return validator.validar(envioValido);
+    }
+
+    @Benchmark
+    public List<FieldError> validarEnvioInvalido() {
+        return validator.validar(envioInvalido);
+    }
+
+    @Benchmark
+    public List<List<FieldError>> validarLote() {
+        return validator.validarTodos(lote);
+    }
+}
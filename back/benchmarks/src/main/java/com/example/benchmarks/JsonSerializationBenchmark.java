@@ -0,0 +1,72 @@
+package com.example.benchmarks;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.app.factory.AdminFormFactory;
+import com.example.app.factory.FormField;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// Serialización a JSON de las respuestas que arman los controladores
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> respuestaPedido;
+    private Map<String, Object> respuestaLogin;
+    private List<FormField> campos;
+
+    @Setup
+    public void preparar() {
+        // Mismas claves que PedidoController.calcular
+        respuestaPedido = new HashMap<>();
+        respuestaPedido.put("descripcion", "Pedido básico, Envío rápido, Envoltura de regalo");
+        respuestaPedido.put("costo", 120.0);
+
+        // Mismas claves que FirebaseController.loginUser
+        respuestaLogin = new HashMap<>();
+        respuestaLogin.put("success", true);
+        respuestaLogin.put("message", "Login exitoso");
+        respuestaLogin.put("loginId", UUID.randomUUID().toString());
+        respuestaLogin.put("timestamp", new Date().toString());
+
+        campos = new AdminFormFactory().createFormFields();
+    }
+
+    @Benchmark
+    public byte[] pedido() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(respuestaPedido);
+    }
+
+    @Benchmark
+    public byte[] login() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(respuestaLogin);
+    }
+
+    @Benchmark
+    public byte[] formulario() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(campos);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.app.pedido.EnvioRapido;
+import com.example.app.pedido.EnvolturaRegalo;
+import com.example.app.pedido.Pedido;
+import com.example.app.pedido.PedidoBase;
+import com.example.app.pedido.Promociones;
+import com.example.app.pedido.ReglaPromocion;
+import com.example.app.pedido.TablaPrecios;
+
+// Evaluación de un pedido según la cantidad de extras: cadena de decoradores contra la tabla precalculada,
+// y la tabla más un conjunto de miles de reglas de precios de las que solo unas pocas aplican
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PedidoBenchmark {
+
+    @Param({"0", "1", "4", "16", "64"})
+    public int extras;
+
+    private List<String> lista;
+    private TablaPrecios tabla;
+    private Promociones promociones;
+
+    @Setup
+    public void preparar() {
+        lista = new ArrayList<>(extras);
+        for (int i = 0; i < extras; i++) {
+            lista.add(i % 2 == 0 ? "envio" : "regalo");
+        }
+        tabla = TablaPrecios.porDefecto();
+
+        List<ReglaPromocion> reglas = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            reglas.add(regla("otro-" + i, "precio", 100, 0, "extra-" + i));
+        }
+        reglas.add(regla("envio", "precio", 999, 0, "envio"));
+        reglas.add(regla("combo", "combo", 250, 0, "envio", "regalo"));
+        reglas.add(regla("global", "porcentaje", 0, 10));
+        promociones = Promociones.compilar(reglas);
+    }
+
+    @Benchmark
+    public void cadenaDecoradores(Blackhole bh) {
+        Pedido pedido = new PedidoBase();
+        for (String extra : lista) {
+            pedido = "envio".equals(extra) ? new EnvioRapido(pedido) : new EnvolturaRegalo(pedido);
+        }
+        bh.consume(pedido.getDescripcion());
+        bh.consume(pedido.getCosto());
+    }
+
+    @Benchmark
+    public void tablaPrecios(Blackhole bh) {
+        Pedido pedido = tabla.cotizar(lista);
+        bh.consume(pedido.getDescripcion());
+        bh.consume(pedido.getCosto());
+    }
+
+    @Benchmark
+    public void tablaConPromociones(Blackhole bh) {
+        Pedido pedido = promociones.aplicar(tabla.cotizar(lista), lista, tabla, System.currentTimeMillis());
+        bh.consume(pedido.getDescripcion());
+        bh.consume(pedido.getCostoCentavos());
+    }
+
+    private static ReglaPromocion regla(String id, String tipo, long centavos, int porcentaje, String... extras) {
+        ReglaPromocion regla = new ReglaPromocion();
+        regla.setId(id);
+        regla.setTipo(tipo);
+        regla.setCentavos(centavos);
+        regla.setPorcentaje(porcentaje);
+        regla.setExtras(List.of(extras));
+        return regla;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.app.AppApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prueba de carga de lazo abierto (open-loop) para todos los endpoints.
+ *
+ * Levanta la aplicación con el almacén en memoria en un puerto libre y envía solicitudes
+ * a tasa constante. Cada solicitud tiene una hora prevista de envío; la latencia se mide
+ * desde esa hora y no desde el envío real, así que si el servidor se atrasa, la espera
+ * queda registrada (corrección de la omisión coordinada). El envío nunca espera respuestas.
+ *
+ * Propiedades del sistema:
+ *   loadtest.rate       solicitudes por segundo por endpoint (500)
+ *   loadtest.duration   segundos de medición por paso (30)
+ *   loadtest.warmup     segundos de calentamiento por endpoint (5)
+ *   loadtest.ramp       si es true, duplica la tasa en cada paso hasta superar loadtest.slo-ms en p99
+ *   loadtest.slo-ms     p99 máximo aceptable en modo rampa (50)
+ *   loadtest.max-rate   tasa máxima en modo rampa (64000)
+ *   loadtest.output     carpeta de reportes (target/loadtest)
+ *   loadtest.include    expresión regular sobre el nombre del endpoint (todos)
+ *
+ * Por cada endpoint y tasa se escribe un archivo .hgrm con la distribución de percentiles
+ * (en milisegundos) y una fila en summary.csv.
+ */
+public class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient client;
+    private final String base;
+    private final Path salida;
+
+    LoadTest(String base, Path salida) {
+        this.base = base;
+        this.salida = salida;
+        this.client = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2))
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.getInteger("loadtest.rate", 500);
+        int duration = Integer.getInteger("loadtest.duration", 30);
+        int warmup = Integer.getInteger("loadtest.warmup", 5);
+        boolean ramp = Boolean.getBoolean("loadtest.ramp");
+        long sloMs = Long.getLong("loadtest.slo-ms", 50);
+        int maxRate = Integer.getInteger("loadtest.max-rate", 64_000);
+        String include = System.getProperty("loadtest.include", ".*");
+        Path salida = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+        Files.createDirectories(salida);
+
+        ConfigurableApplicationContext contexto = SpringApplication.run(AppApplication.class,
+            "--app.store.type=memory",
+            "--server.port=0",
+            // Los cuerpos se repiten en cada solicitud: sin esto las escrituras se responderían desde la tabla de idempotencia
+            "--firebase.idempotency.hash-body=false",
+            // Todas las solicitudes salen del mismo cliente: se mide el servicio, no el control de admisión
+            "--firebase.admission.enabled=false",
+            "--logging.level.root=WARN");
+        int puerto = ((ServletWebServerApplicationContext) contexto).getWebServer().getPort();
+
+        try (PrintStream resumen = new PrintStream(Files.newOutputStream(salida.resolve("summary.csv")))) {
+            resumen.println("endpoint,rate,sent,errors,achieved_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+            LoadTest prueba = new LoadTest("http://localhost:" + puerto, salida);
+
+            for (Escenario escenario : prueba.escenarios()) {
+                if (!escenario.nombre.matches(include)) {
+                    continue;
+                }
+                prueba.ejecutar(escenario, rate, warmup, null);
+
+                int tasa = rate;
+                while (true) {
+                    Resultado resultado = prueba.ejecutar(escenario, tasa, duration, resumen);
+                    double p99 = resultado.histograma.getValueAtPercentile(99.0) / 1e6;
+                    if (!ramp || p99 > sloMs || resultado.errores > resultado.enviadas / 100 || tasa * 2 > maxRate) {
+                        break;
+                    }
+                    tasa *= 2;
+                }
+            }
+        } finally {
+            SpringApplication.exit(contexto);
+        }
+        System.exit(0);
+    }
+
+    // Endpoints a medir; el de /firebase/user usa un login creado antes de empezar
+    private List<Escenario> escenarios() throws Exception {
+        HttpResponse<String> login = client.send(post("/firebase/login",
+            "{\"email\":\"admin@email.com\",\"password\":\"admin123\"}"), HttpResponse.BodyHandlers.ofString());
+        String loginId = (String) JSON.readValue(login.body(), Map.class).get("loginId");
+
+        List<Escenario> escenarios = new ArrayList<>();
+        escenarios.add(new Escenario("pedidos_calcular", post("/api/pedidos/calcular", "[\"envio\",\"regalo\"]")));
+        escenarios.add(new Escenario("form_role", get("/form/admin")));
+        escenarios.add(new Escenario("form_login", post("/form/login",
+            "{\"email\":\"admin@email.com\",\"password\":\"admin123\"}")));
+        escenarios.add(new Escenario("firebase_test", post("/firebase/test", "{\"origen\":\"loadtest\"}")));
+        escenarios.add(new Escenario("firebase_login", post("/firebase/login",
+            "{\"email\":\"guest@email.com\",\"password\":\"guest123\"}")));
+        escenarios.add(new Escenario("firebase_user", get("/firebase/user/" + loginId)));
+        return escenarios;
+    }
+
+    // Envía solicitudes a tasa constante durante `segundos` y registra la latencia de cada una
+    private Resultado ejecutar(Escenario escenario, int tasa, int segundos, PrintStream resumen) throws IOException {
+        Recorder recorder = new Recorder(3);
+        LongAdder errores = new LongAdder();
+        LongAdder terminadas = new LongAdder();
+
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / tasa;
+        long total = (long) tasa * segundos;
+        long inicio = System.nanoTime();
+
+        for (long i = 0; i < total; i++) {
+            long prevista = inicio + i * intervalo;
+            long espera = prevista - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            client.sendAsync(escenario.solicitud, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((respuesta, error) -> {
+                    // La latencia se cuenta desde la hora prevista, no desde el envío real
+                    recorder.recordValue(System.nanoTime() - prevista);
+                    if (error != null || respuesta.statusCode() >= 400) {
+                        errores.increment();
+                    }
+                    terminadas.increment();
+                });
+        }
+
+        // Espera las respuestas que faltan, como mucho 30 segundos
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (terminadas.sum() < total && System.nanoTime() < limite) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        if (terminadas.sum() < total) {
+            System.err.println(escenario.nombre + ": quedaron " + (total - terminadas.sum()) + " solicitudes sin respuesta");
+        }
+        double transcurrido = (System.nanoTime() - inicio) / 1e9;
+
+        Histogram histograma = recorder.getIntervalHistogram();
+        Resultado resultado = new Resultado(histograma, total, errores.sum());
+        if (resumen != null) {
+            reportar(escenario, tasa, resultado, transcurrido, resumen);
+        }
+        return resultado;
+    }
+
+    private void reportar(Escenario escenario, int tasa, Resultado resultado, double transcurrido,
+                          PrintStream resumen) throws IOException {
+        Histogram h = resultado.histograma;
+        Path archivo = salida.resolve(escenario.nombre + "-" + tasa + "rps.hgrm");
+        try (PrintStream hgrm = new PrintStream(Files.newOutputStream(archivo))) {
+            // Valores en nanosegundos, reportados en milisegundos
+            h.outputPercentileDistribution(hgrm, 1e6);
+        }
+
+        String fila = String.format(java.util.Locale.ROOT, "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f",
+            escenario.nombre, tasa, resultado.enviadas, resultado.errores, resultado.enviadas / transcurrido,
+            h.getValueAtPercentile(50) / 1e6, h.getValueAtPercentile(90) / 1e6,
+            h.getValueAtPercentile(99) / 1e6, h.getValueAtPercentile(99.9) / 1e6, h.getMaxValue() / 1e6);
+        resumen.println(fila);
+        resumen.flush();
+        System.out.println(fila);
+    }
+
+    private HttpRequest get(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest post(String ruta, String cuerpo) {
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+            .timeout(Duration.ofSeconds(30))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+            .build();
+    }
+
+    private static final class Escenario {
+        private final String nombre;
+        private final HttpRequest solicitud;
+
+        Escenario(String nombre, HttpRequest solicitud) {
+            this.nombre = nombre;
+            this.solicitud = solicitud;
+        }
+    }
+
+    private static final class Resultado {
+        private final Histogram histograma;
+        private final long enviadas;
+        private final long errores;
+
+        Resultado(Histogram histograma, long enviadas, long errores) {
+            this.histograma = histograma;
+            this.enviadas = enviadas;
+            this.errores = errores;
+        }
+    }
+}
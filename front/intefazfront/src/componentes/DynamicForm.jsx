@@ -11,8 +11,8 @@ function DynamicForm({ role }) {
 
   return (
     <form>
-      {fields.map((field, index) => (
-        <div key={index}>
+      {fields.map(field => (
+        <div key={field.id}>
           <label>{field.label}</label>
           <input
             type={field.type}
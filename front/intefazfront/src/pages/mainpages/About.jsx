@@ -82,6 +82,21 @@ function About() {
     console.log("FormValues:", formValues);
   }, [formFields, formValues]);
 
+  // Los cambios del login llegan por server-sent events, sin volver a consultar /firebase/user
+  useEffect(() => {
+    const loginId = localStorage.getItem("loginId");
+    if (!isLoggedIn || !loginId) return;
+
+    const source = new EventSource(`http://localhost:8080/firebase/stream/logins/${loginId}`);
+    const actualizar = (event) => {
+      const { data } = JSON.parse(event.data);
+      if (data) setFirebaseData(data);
+    };
+    source.addEventListener("snapshot", actualizar);
+    source.addEventListener("change", actualizar);
+    return () => source.close();
+  }, [isLoggedIn]);
+
   const handleInputChange = (e, fieldLabel) => {
     setFormValues(prev => ({
       ...prev,